@@ -0,0 +1,50 @@
+#!/bin/bash
+#
+# Primerjava navideznih strojev.
+#
+# Vsak program izvede z vsemi navideznimi stroji in izpiše čas izvajanja.
+# Izpis programa mora biti enak izpisu tolmača drevesa vmesne kode (TREE).
+#
+# Uporaba: bench/run.sh [program.pins ...]
+#
+# Spremenljivke okolja:
+#   JAVA     - pot do ukaza java (privzeto: java)
+#   OPTIMIZE - stopnja optimizacije (privzeto: 2)
+#   MEMORY   - velikost pomnilnika (privzeto: 65536)
+#
+
+cd "$(dirname "$0")/.."
+JAVA=${JAVA:-java}
+OPTIMIZE=${OPTIMIZE:-2}
+MEMORY=${MEMORY:-65536}
+TIMEFORMAT="%R"
+VMS="TREE STACK REGISTER"
+
+programs=("$@")
+if [ ${#programs[@]} -eq 0 ]; then
+    programs=(bench/*.pins)
+fi
+
+status=0
+printf "%-24s" "program"
+for vm in $VMS; do printf "%12s" "$vm"; done
+printf "\n"
+for program in "${programs[@]}"; do
+    printf "%-24s" "$(basename "$program")"
+    expected=""
+    for vm in $VMS; do
+        out=$(mktemp)
+        seconds=$( { time "$JAVA" -Xss64m -cp ".build:lib/*" Main PINS "$program" --exec INT --dump INT \
+            --vm "$vm" --optimize "$OPTIMIZE" --memory "$MEMORY" > "$out"; } 2>&1 )
+        if [ "$vm" = TREE ]; then
+            expected=$(cat "$out")
+        elif [ "$(cat "$out")" != "$expected" ]; then
+            seconds="NAPAKA"
+            status=1
+        fi
+        rm -f "$out"
+        printf "%12s" "$seconds"
+    done
+    printf "\n"
+done
+exit $status
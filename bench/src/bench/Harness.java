@@ -0,0 +1,82 @@
+/**
+ * @ Author: turk
+ * @ Description: Merjenje časa izvajanja operacij.
+ */
+
+package bench;
+
+import static common.RequireNonNull.requireNonNull;
+
+/**
+ * Meri povprečen čas ene izvedbe operacije.
+ *
+ * Meritev je razdeljena na iteracije, ki trajajo vsaj `iterationNanos`.
+ * Prvih `warmupIterations` iteracij zavržemo (ogrevanje prevajalnika JIT),
+ * za vsako od naslednjih `measurementIterations` iteracij pa vrnemo
+ * povprečen čas izvedbe. Priprava stanja (`Operation.setup`) se ne meri.
+ */
+public class Harness {
+    /**
+     * Operacija, ki jo merimo.
+     */
+    public interface Operation<S> {
+        /**
+         * Pripravi stanje za eno izvedbo. Ni vključeno v meritev.
+         */
+        S setup();
+
+        /**
+         * Izvede operacijo. Rezultat se porabi, da ga JIT ne more odstraniti.
+         */
+        Object run(S state);
+    }
+
+    /**
+     * Sem zapišemo rezultate operacij.
+     */
+    public static volatile Object sink;
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+
+    public Harness(int warmupIterations, int measurementIterations, long iterationNanos) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationNanos;
+    }
+
+    /**
+     * Izmeri operacijo.
+     *
+     * @return Povprečen čas izvedbe (v nanosekundah) za vsako merjeno iteracijo.
+     */
+    public <S> double[] measure(Operation<S> operation) {
+        requireNonNull(operation);
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(operation);
+        }
+        var scores = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            System.gc();
+            scores[i] = iteration(operation);
+        }
+        return scores;
+    }
+
+    private <S> double iteration(Operation<S> operation) {
+        long start = System.nanoTime();
+        long measured = 0;
+        long count = 0;
+        do {
+            var state = operation.setup();
+            long t0 = System.nanoTime();
+            var result = operation.run(state);
+            long t1 = System.nanoTime();
+            sink = result;
+            measured += t1 - t0;
+            count++;
+        } while (System.nanoTime() - start < iterationNanos);
+        return (double) measured / count;
+    }
+}
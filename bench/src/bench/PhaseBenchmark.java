@@ -0,0 +1,329 @@
+/**
+ * @ Author: turk
+ * @ Description: Merjenje faz prevajanja in tolmača.
+ */
+
+package bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import compiler.frm.FrameEvaluator;
+import compiler.gen.LinCodeGenerator;
+import compiler.gen.Memory;
+import compiler.interpret.Interpreter;
+import compiler.ir.IRCodeGenerator;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.lexer.Lexer;
+import compiler.parser.Parser;
+import compiler.parser.ast.def.Def;
+import compiler.seman.common.NodeDescription;
+import compiler.seman.name.NameChecker;
+import compiler.seman.name.env.FastSymbolTable;
+import compiler.seman.type.TypeChecker;
+import compiler.seman.type.type.Type;
+
+/**
+ * Za vsako fazo prevajanja in vsak program izmeri povprečen čas izvedbe faze.
+ *
+ * Vsaka meritev (faza, program) se privzeto izvede v svojem procesu JVM, da
+ * profil prevajalnika JIT ene meritve ne vpliva na drugo.
+ *
+ * Uporaba: bench.PhaseBenchmark [možnosti] [program.pins ...]
+ *
+ *   --warmup N      število iteracij ogrevanja (privzeto 5)
+ *   --iterations N  število merjenih iteracij (privzeto 10)
+ *   --time MS       trajanje ene iteracije v milisekundah (privzeto 200)
+ *   --forks N       število procesov na meritev, 0 - brez novih procesov (privzeto 1)
+ *   --scale N       velikost umetnih programov (privzeto 1)
+ *   --optimize N    stopnja optimizacije (privzeto 0)
+ *   --filter REGEX  izvede le meritve, katerih ime `faza/program` ustreza izrazu
+ *   --csv           izpis v obliki CSV
+ *
+ * Če programi niso podani, se uporabijo `izvorna`, `izvorna2` in `izvorna3`.
+ */
+public class PhaseBenchmark {
+    private int warmup = 5;
+    private int iterations = 10;
+    private long time = 200;
+    private int forks = 1;
+    private int scale = 1;
+    private int optimizationLevel = 0;
+    private Pattern filter = Pattern.compile(".*");
+    private boolean csv = false;
+    private final List<String> programs = new ArrayList<>();
+
+    /**
+     * Ime meritve, ki jo izvede podrejen proces.
+     */
+    private String child;
+
+    /**
+     * Argumenti brez `--run`, ki jih podamo podrejenim procesom.
+     */
+    private final List<String> arguments = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        var benchmark = new PhaseBenchmark();
+        benchmark.parse(args);
+        if (benchmark.child != null) {
+            benchmark.runChild();
+        } else {
+            System.exit(benchmark.runAll() ? 0 : 1);
+        }
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            var arg = args[i];
+            if (arg.equals("--run")) {
+                child = args[++i];
+                continue;
+            }
+            arguments.add(arg);
+            switch (arg) {
+                case "--warmup" -> warmup = Integer.parseInt(value(args, ++i));
+                case "--iterations" -> iterations = Integer.parseInt(value(args, ++i));
+                case "--time" -> time = Long.parseLong(value(args, ++i));
+                case "--forks" -> forks = Integer.parseInt(value(args, ++i));
+                case "--scale" -> scale = Integer.parseInt(value(args, ++i));
+                case "--optimize" -> optimizationLevel = Integer.parseInt(value(args, ++i));
+                case "--filter" -> filter = Pattern.compile(value(args, ++i));
+                case "--csv" -> csv = true;
+                default -> {
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option " + arg + "!");
+                    }
+                    programs.add(arg);
+                }
+            }
+        }
+        if (programs.isEmpty()) {
+            programs.addAll(List.of("izvorna", "izvorna2", "izvorna3"));
+        }
+    }
+
+    /**
+     * Vrednost možnosti; shranimo jo tudi med argumente za podrejene procese.
+     */
+    private String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1] + "!");
+        }
+        arguments.add(args[i]);
+        return args[i];
+    }
+
+    // --------- programi in faze ----------
+
+    private List<Workload> workloads() throws IOException {
+        var workloads = new ArrayList<Workload>();
+        for (var program : programs) {
+            var source = Files.readString(Paths.get(program));
+            workloads.add(new Workload(Paths.get(program).getFileName().toString(), source, 1024, optimizationLevel));
+        }
+        workloads.addAll(Arrays.asList(Workloads.all(scale, optimizationLevel)));
+        return workloads;
+    }
+
+    /**
+     * Faze prevajanja. Vsaka faza dobi rezultate predhodnih faz iz `Workload`.
+     */
+    private static Map<String, Harness.Operation<?>> phases(Workload w) {
+        var phases = new LinkedHashMap<String, Harness.Operation<?>>();
+        phases.put("lexer", operation(() -> w.source, source -> new Lexer(source).scan()));
+        phases.put("parser", operation(() -> w.symbols, symbols -> new Parser(symbols, Optional.empty()).parse()));
+        phases.put("name", operation(() -> new NodeDescription<Def>(), definitions -> {
+            w.ast.accept(new NameChecker(definitions, new FastSymbolTable()));
+            return definitions;
+        }));
+        phases.put("type", operation(() -> new NodeDescription<Type>(), types -> {
+            w.ast.accept(new TypeChecker(w.definitions, types));
+            return types;
+        }));
+        phases.put("frame", operation(() -> w.ast, ast -> {
+            var evaluator = new FrameEvaluator(new NodeDescription<>(), new NodeDescription<>(), w.definitions, w.types);
+            ast.accept(evaluator);
+            return evaluator;
+        }));
+        phases.put("imc", operation(() -> w.ast, ast -> {
+            var generator = new IRCodeGenerator(new NodeDescription<>(), w.frames, w.accesses, w.definitions, w.types);
+            ast.accept(generator);
+            return generator.chunks;
+        }));
+        phases.put("lin", operation(() -> new Memory(w.memory), memory ->
+            new LinCodeGenerator(memory, w.optimizationLevel).generateCode(w.chunks)));
+        phases.put("interpret", operation(() -> {
+            var memory = new Memory(w.memory);
+            var main = new LinCodeGenerator(memory, w.optimizationLevel).generateCode(w.chunks);
+            return new Object[] { new Interpreter(memory, Optional.empty()), main.get() };
+        }, state -> {
+            ((Interpreter) state[0]).interpret((CodeChunk) state[1]);
+            return state;
+        }));
+        return phases;
+    }
+
+    private static <S> Harness.Operation<S> operation(Supplier<S> setup, Function<S, Object> run) {
+        return new Harness.Operation<>() {
+            @Override
+            public S setup() {
+                return setup.get();
+            }
+
+            @Override
+            public Object run(S state) {
+                return run.apply(state);
+            }
+        };
+    }
+
+    // --------- izvajanje ----------
+
+    /**
+     * Izvede vse meritve in izpiše rezultate.
+     *
+     * @return `false`, če katera od meritev ni uspela.
+     */
+    private boolean runAll() throws Exception {
+        var names = new ArrayList<String>();
+        for (var workload : workloads()) {
+            for (var phase : phases(workload).keySet()) {
+                var name = phase + "/" + workload.name;
+                if (filter.matcher(name).matches()) {
+                    names.add(name);
+                }
+            }
+        }
+
+        boolean ok = true;
+        // Programi, pri katerih je meritev že spodletela - preostalih faz ne merimo.
+        var failed = new HashSet<String>();
+        if (csv) {
+            System.out.println("benchmark,mean_ns,error_ns,samples");
+        } else {
+            System.out.printf("%-32s %14s %12s %8s%n", "meritev", "us/op", "± us/op", "vzorci");
+        }
+        for (var name : names) {
+            var workload = name.split("/", 2)[1];
+            if (failed.contains(workload)) {
+                continue;
+            }
+            var scores = new ArrayList<Double>();
+            if (forks == 0) {
+                for (var score : measure(name)) {
+                    scores.add(score);
+                }
+            } else {
+                for (int fork = 0; fork < forks; fork++) {
+                    var result = fork(name);
+                    if (result.isEmpty()) {
+                        ok = false;
+                        failed.add(workload);
+                        break;
+                    }
+                    scores.addAll(result.get());
+                }
+            }
+            print(name, scores);
+        }
+        return ok;
+    }
+
+    /**
+     * Izvede meritev `name` v trenutnem procesu.
+     */
+    private double[] measure(String name) throws IOException {
+        var split = name.split("/", 2);
+        for (var workload : workloads()) {
+            if (workload.name.equals(split[1])) {
+                var operation = phases(workload.prepare()).get(split[0]);
+                return new Harness(warmup, iterations, time * 1_000_000).measure(operation);
+            }
+        }
+        throw new IllegalArgumentException("Unknown benchmark " + name + "!");
+    }
+
+    private void runChild() throws IOException {
+        var scores = measure(child);
+        var line = new StringBuilder("REZULTAT");
+        for (var score : scores) {
+            line.append(' ').append(score);
+        }
+        System.out.println(line);
+    }
+
+    /**
+     * Izvede meritev `name` v novem procesu JVM z enakimi nastavitvami.
+     */
+    private Optional<List<Double>> fork(String name) throws IOException, InterruptedException {
+        var command = new ArrayList<String>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(PhaseBenchmark.class.getName());
+        command.addAll(arguments);
+        command.add("--run");
+        command.add(name);
+
+        var process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        List<Double> scores = null;
+        try (var reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("REZULTAT")) {
+                    scores = new ArrayList<>();
+                    for (var value : line.substring("REZULTAT".length()).trim().split(" ")) {
+                        scores.add(Double.parseDouble(value));
+                    }
+                }
+            }
+        }
+        if (process.waitFor() != 0 || scores == null) {
+            System.err.println("Meritev " + name + " ni uspela!");
+            return Optional.empty();
+        }
+        return Optional.of(scores);
+    }
+
+    /**
+     * Izpiše povprečje in 99.9 % interval zaupanja (normalna aproksimacija).
+     */
+    private void print(String name, List<Double> scores) {
+        if (scores.isEmpty()) {
+            return;
+        }
+        double mean = 0;
+        for (var score : scores) {
+            mean += score;
+        }
+        mean /= scores.size();
+        double variance = 0;
+        for (var score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        double error = scores.size() > 1
+            ? 3.291 * Math.sqrt(variance / (scores.size() - 1)) / Math.sqrt(scores.size())
+            : Double.NaN;
+        if (csv) {
+            System.out.printf("%s,%.1f,%.1f,%d%n", name, mean, error, scores.size());
+        } else {
+            System.out.printf("%-32s %14.3f %12.3f %8d%n", name, mean / 1e3, error / 1e3, scores.size());
+        }
+    }
+}
@@ -0,0 +1,373 @@
+/**
+ * @ Author: turk
+ * @ Description: Generator umetnih programov PINS.
+ */
+
+package bench;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import compiler.common.SourcePrinter;
+import compiler.lexer.Lexer;
+import compiler.lexer.Position;
+import compiler.parser.Parser;
+import compiler.parser.ast.def.*;
+import compiler.parser.ast.expr.*;
+import compiler.parser.ast.type.*;
+import compiler.seman.common.NodeDescription;
+import compiler.seman.name.NameChecker;
+import compiler.seman.name.env.FastSymbolTable;
+import compiler.seman.type.TypeChecker;
+
+/**
+ * Generira veljavne programe PINS s pravilnimi tipi.
+ *
+ * Program je sestavljen iz AST in izpisan s `SourcePrinter`, zato je
+ * sintaktično pravilen. Generator pazi na tipe, deljenje le s konstantami
+ * različnimi od 0, indekse tabel znotraj mej in končno izvajanje:
+ * funkcija `f<i>` kliče največ `f<i-1>`, verige klicev pa so dolge največ
+ * `chainLength` funkcij, zato je čas izvajanja linearen v številu funkcij.
+ *
+ * Funkcije izpisujemo sproti, zato je poraba pomnilnika neodvisna od
+ * velikosti programa (od nekaj KB do več sto MB).
+ *
+ * Uporaba: bench.ProgramGenerator [možnosti]
+ *
+ *   --functions N        število funkcij (privzeto 16)
+ *   --size BYTES         generira funkcije, dokler izpis ne doseže podane velikosti
+ *   --nesting N          globina gnezdenja blokov `where` v vsaki funkciji (privzeto 2)
+ *   --expression-depth N globina generiranih izrazov (privzeto 3)
+ *   --array-dims N       število dimenzij globalne tabele (privzeto 2)
+ *   --array-size N       velikost vsake dimenzije tabele (privzeto 8)
+ *   --loops N            število obhodov zanke v vsaki funkciji (privzeto 10)
+ *   --strings N          dolžina nizov v vsaki funkciji (privzeto 0 - brez nizov)
+ *   --seed N             seme generatorja naključnih števil (privzeto 42)
+ *   --output FILE        izhodna datoteka (privzeto standardni izhod)
+ *   --check              po generiranju preveri program (do preverjanja tipov)
+ */
+public class ProgramGenerator {
+    /**
+     * Največja dolžina verige klicev `f<i> -> f<i-1> -> ...`.
+     */
+    private static final int chainLength = 16;
+
+    private static final String[] words = {
+        "danes", "je", "lep", "dan", "prevajalnik", "za", "jezik", "pins", "vmesna", "koda",
+    };
+
+    public int functions = 16;
+    public long size = 0;
+    public int nesting = 2;
+    public int expressionDepth = 3;
+    public int arrayDims = 2;
+    public int arraySize = 8;
+    public int loops = 10;
+    public int strings = 0;
+    public long seed = 42;
+
+    private Random random;
+
+    public static void main(String[] args) throws IOException {
+        var generator = new ProgramGenerator();
+        String output = null;
+        boolean check = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--functions" -> generator.functions = Integer.parseInt(args[++i]);
+                case "--size" -> generator.size = Long.parseLong(args[++i]);
+                case "--nesting" -> generator.nesting = Integer.parseInt(args[++i]);
+                case "--expression-depth" -> generator.expressionDepth = Integer.parseInt(args[++i]);
+                case "--array-dims" -> generator.arrayDims = Integer.parseInt(args[++i]);
+                case "--array-size" -> generator.arraySize = Integer.parseInt(args[++i]);
+                case "--loops" -> generator.loops = Integer.parseInt(args[++i]);
+                case "--strings" -> generator.strings = Integer.parseInt(args[++i]);
+                case "--seed" -> generator.seed = Long.parseLong(args[++i]);
+                case "--output" -> output = args[++i];
+                case "--check" -> check = true;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i] + "!");
+            }
+        }
+        if (check && output == null) {
+            throw new IllegalArgumentException("--check requires --output!");
+        }
+
+        if (output == null) {
+            generator.generate(System.out);
+            System.out.flush();
+        } else {
+            try (var stream = new BufferedOutputStream(new FileOutputStream(output), 1 << 16)) {
+                generator.generate(stream);
+            }
+        }
+        if (check) {
+            check(Files.readString(Paths.get(output)));
+            System.err.println("Program " + output + " je veljaven.");
+        }
+    }
+
+    /**
+     * Izvede leksikalno, sintaksno in semantično analizo programa.
+     * Ob napaki `Report.error` prekine izvajanje.
+     */
+    public static void check(String source) {
+        requireNonNull(source);
+        var ast = new Parser(new Lexer(source).scan(), Optional.empty()).parse();
+        var definitions = new NodeDescription<Def>();
+        ast.accept(new NameChecker(definitions, new FastSymbolTable()));
+        ast.accept(new TypeChecker(definitions, new NodeDescription<>()));
+    }
+
+    /**
+     * Velikost pomnilnika, ki jo program potrebuje za izvajanje.
+     */
+    public int memory() {
+        long elements = 1;
+        for (int i = 0; i < arrayDims; i++) {
+            elements *= arraySize;
+        }
+        return (int) (4 * elements + (1 << 20));
+    }
+
+    /**
+     * Generira program v izhodni tok.
+     */
+    public void generate(OutputStream output) {
+        requireNonNull(output);
+        random = new Random(seed);
+        var counter = new CountingStream(output);
+        var stream = new PrintStream(counter, false, StandardCharsets.UTF_8);
+        var printer = new SourcePrinter(stream);
+
+        stream.printf("# functions=%d size=%d nesting=%d expression-depth=%d array-dims=%d array-size=%d loops=%d strings=%d seed=%d%n",
+            functions, size, nesting, expressionDepth, arrayDims, arraySize, loops, strings, seed);
+        if (arrayDims > 0) {
+            Type type = Atom.INT(pos());
+            for (int i = 0; i < arrayDims; i++) {
+                type = new Array(pos(), arraySize, type);
+            }
+            printer.print(new TypeDef(pos(), "mat", type));
+            stream.println(";");
+            printer.print(new VarDef(pos(), "g", new TypeName(pos(), "mat")));
+            stream.println(";");
+        }
+
+        // Funkcije, ki jih kliče `main` (zadnje v verigi).
+        var heads = new ArrayList<Integer>();
+        int i = 0;
+        while (size > 0 ? counter.count < size : i < functions) {
+            printer.print(function(i));
+            stream.println(";");
+            if (i % chainLength == chainLength - 1) {
+                heads.add(i);
+            }
+            i++;
+        }
+        if (i > 0 && (i - 1) % chainLength != chainLength - 1) {
+            heads.add(i - 1);
+        }
+        printer.print(main(heads));
+        stream.println();
+        stream.flush();
+    }
+
+    // --------- funkcije ----------
+
+    private FunDef main(List<Integer> heads) {
+        var body = new ArrayList<Expr>();
+        body.add(assign(name("r"), integer(0)));
+        for (var head : heads) {
+            body.add(assign(name("r"), add(name("r"), call("f" + head, integer(1), integer(2)))));
+        }
+        body.add(call("print_int", name("r")));
+        body.add(integer(0));
+        var defs = List.<Def>of(new VarDef(pos(), "r", Atom.INT(pos())));
+        return function("main", List.of("x"), new Where(pos(), new Block(pos(), body), new Defs(pos(), defs)));
+    }
+
+    /**
+     * Funkcija `f<i>(a, b)`.
+     */
+    private FunDef function(int i) {
+        var scope = List.of("a", "b", "x");
+        var body = new ArrayList<Expr>();
+        var defs = new ArrayList<Def>();
+        defs.add(new VarDef(pos(), "x", Atom.INT(pos())));
+
+        // `x` v prvi prireditvi še ni inicializiran, zato ga izraz ne sme brati.
+        body.add(assign(name("x"), intExpr(expressionDepth, List.of("a", "b"))));
+        if (arrayDims > 0 && loops > 0) {
+            defs.add(new VarDef(pos(), "k", Atom.INT(pos())));
+            var element = element(name("k"));
+            var loopBody = new Block(pos(), List.of(
+                assign(element, intExpr(expressionDepth, scope)),
+                assign(name("x"), add(name("x"), element(name("k"))))));
+            body.add(new For(pos(), name("k"), integer(0), integer(loops), integer(1), loopBody));
+        }
+        body.add(new IfThenElse(pos(), logExpr(expressionDepth, scope),
+            assign(name("x"), add(name("x"), integer(1))),
+            assign(name("x"), new Binary(pos(), name("x"), Binary.Operator.SUB, integer(1)))));
+        if (strings > 0) {
+            defs.add(new VarDef(pos(), "s", Atom.STR(pos())));
+            body.add(assign(name("s"), new Literal(pos(), string(strings), Atom.Type.STR)));
+        }
+        if (nesting > 0) {
+            defs.add(helper(1, scope));
+            body.add(assign(name("x"), add(name("x"), call("h1", name("x")))));
+        }
+        if (i % chainLength != 0) {
+            body.add(assign(name("x"), add(name("x"), call("f" + (i - 1), name("x"), name("b")))));
+        }
+        body.add(name("x"));
+        return function("f" + i, List.of("a", "b"), new Where(pos(), new Block(pos(), body), new Defs(pos(), defs)));
+    }
+
+    /**
+     * Gnezdena funkcija `h<level>(p<level>)`, ki uporablja spremenljivke
+     * zunanjih funkcij (statična veriga).
+     */
+    private FunDef helper(int level, List<String> outer) {
+        var p = "p" + level;
+        var y = "y" + level;
+        var scope = new ArrayList<>(outer);
+        scope.add(p);
+        var body = new ArrayList<Expr>();
+        var defs = new ArrayList<Def>();
+        defs.add(new VarDef(pos(), y, Atom.INT(pos())));
+        body.add(assign(name(y), intExpr(expressionDepth, scope)));
+        if (level < nesting) {
+            defs.add(helper(level + 1, scope));
+            body.add(assign(name(y), add(name(y), call("h" + (level + 1), name(y)))));
+        }
+        body.add(name(y));
+        return function("h" + level, List.of(p), new Where(pos(), new Block(pos(), body), new Defs(pos(), defs)));
+    }
+
+    private FunDef function(String name, List<String> parameters, Expr body) {
+        var params = new ArrayList<FunDef.Parameter>();
+        for (var parameter : parameters) {
+            params.add(new FunDef.Parameter(pos(), parameter, Atom.INT(pos())));
+        }
+        return new FunDef(pos(), name, params, Atom.INT(pos()), body);
+    }
+
+    // --------- izrazi ----------
+
+    private Expr intExpr(int depth, List<String> scope) {
+        if (depth == 0 || random.nextInt(5) == 0) {
+            return random.nextBoolean()
+                ? integer(random.nextInt(100))
+                : name(scope.get(random.nextInt(scope.size())));
+        }
+        return switch (random.nextInt(5)) {
+            case 0 -> add(intExpr(depth - 1, scope), intExpr(depth - 1, scope));
+            case 1 -> new Binary(pos(), intExpr(depth - 1, scope), Binary.Operator.SUB, intExpr(depth - 1, scope));
+            case 2 -> new Binary(pos(), intExpr(depth - 1, scope), Binary.Operator.MUL, intExpr(depth - 1, scope));
+            case 3 -> new Binary(pos(), intExpr(depth - 1, scope), Binary.Operator.DIV, integer(1 + random.nextInt(9)));
+            default -> new Unary(pos(), intExpr(depth - 1, scope), Unary.Operator.SUB);
+        };
+    }
+
+    private Expr logExpr(int depth, List<String> scope) {
+        if (depth <= 1 || random.nextInt(4) == 0) {
+            var operators = new Binary.Operator[] {
+                Binary.Operator.EQ, Binary.Operator.NEQ, Binary.Operator.LT,
+                Binary.Operator.GT, Binary.Operator.LEQ, Binary.Operator.GEQ,
+            };
+            var operator = operators[random.nextInt(operators.length)];
+            int operandDepth = Math.max(depth - 1, 0);
+            return new Binary(pos(), intExpr(operandDepth, scope), operator, intExpr(operandDepth, scope));
+        }
+        return switch (random.nextInt(3)) {
+            case 0 -> new Binary(pos(), logExpr(depth - 1, scope), Binary.Operator.AND, logExpr(depth - 1, scope));
+            case 1 -> new Binary(pos(), logExpr(depth - 1, scope), Binary.Operator.OR, logExpr(depth - 1, scope));
+            default -> new Unary(pos(), logExpr(depth - 1, scope), Unary.Operator.NOT);
+        };
+    }
+
+    /**
+     * Element tabele `g[i % n][i % n]...`.
+     */
+    private Expr element(Expr index) {
+        Expr element = name("g");
+        for (int d = 0; d < arrayDims; d++) {
+            // i - i / n * n
+            var modulo = new Binary(pos(), index, Binary.Operator.SUB,
+                new Binary(pos(), new Binary(pos(), index, Binary.Operator.DIV, integer(arraySize)), Binary.Operator.MUL, integer(arraySize)));
+            element = new Binary(pos(), element, Binary.Operator.ARR, modulo);
+        }
+        return element;
+    }
+
+    private String string(int length) {
+        var sb = new StringBuilder();
+        while (sb.length() < length) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(words[random.nextInt(words.length)]);
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    private static Expr assign(Expr dst, Expr src) {
+        return new Binary(pos(), dst, Binary.Operator.ASSIGN, src);
+    }
+
+    private static Expr add(Expr lhs, Expr rhs) {
+        return new Binary(pos(), lhs, Binary.Operator.ADD, rhs);
+    }
+
+    private static Expr call(String name, Expr... args) {
+        return new Call(pos(), List.of(args), name);
+    }
+
+    private static Name name(String name) {
+        return new Name(pos(), name);
+    }
+
+    private static Expr integer(int value) {
+        return new Literal(pos(), String.valueOf(value), Atom.Type.INT);
+    }
+
+    private static Position pos() {
+        return Position.zero();
+    }
+
+    /**
+     * Izhodni tok, ki šteje zapisane bajte.
+     */
+    private static class CountingStream extends FilterOutputStream {
+        long count = 0;
+
+        CountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * @ Author: turk
+ * @ Description: Program, nad katerim merimo faze prevajanja.
+ */
+
+package bench;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.List;
+import java.util.Optional;
+
+import compiler.frm.Access;
+import compiler.frm.Frame;
+import compiler.frm.FrameEvaluator;
+import compiler.ir.IRCodeGenerator;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.opt.ConstantFolding;
+import compiler.lexer.Lexer;
+import compiler.lexer.Symbol;
+import compiler.parser.Parser;
+import compiler.parser.ast.Ast;
+import compiler.parser.ast.def.Def;
+import compiler.seman.common.NodeDescription;
+import compiler.seman.name.NameChecker;
+import compiler.seman.name.env.FastSymbolTable;
+import compiler.seman.type.TypeChecker;
+import compiler.seman.type.type.Type;
+
+/**
+ * Izvorna koda programa in rezultati vseh faz prevajanja do linearizacije.
+ *
+ * Rezultate faz izračunamo enkrat (enako kot `Main`), da lahko vsako
+ * fazo merimo ločeno od predhodnih.
+ */
+public class Workload {
+    public final String name;
+    public final String source;
+
+    /**
+     * Velikost pomnilnika navideznega stroja.
+     */
+    public final int memory;
+
+    public final int optimizationLevel;
+
+    public List<Symbol> symbols;
+    public Ast ast;
+    public NodeDescription<Def> definitions;
+    public NodeDescription<Type> types;
+    public NodeDescription<Frame> frames;
+    public NodeDescription<Access> accesses;
+    public List<Chunk> chunks;
+
+    public Workload(String name, String source, int memory, int optimizationLevel) {
+        requireNonNull(name, source);
+        this.name = name;
+        this.source = source;
+        this.memory = memory;
+        this.optimizationLevel = optimizationLevel;
+    }
+
+    /**
+     * Izvede vse faze do vključno generiranja vmesne kode.
+     */
+    public Workload prepare() {
+        symbols = new Lexer(source).scan();
+        ast = new Parser(symbols, Optional.empty()).parse();
+        definitions = new NodeDescription<>();
+        ast.accept(new NameChecker(definitions, new FastSymbolTable()));
+        types = new NodeDescription<>();
+        ast.accept(new TypeChecker(definitions, types));
+        frames = new NodeDescription<>();
+        accesses = new NodeDescription<>();
+        ast.accept(new FrameEvaluator(frames, accesses, definitions, types));
+        var generator = new IRCodeGenerator(new NodeDescription<>(), frames, accesses, definitions, types);
+        ast.accept(generator);
+        chunks = optimizationLevel > 0 ? new ConstantFolding().fold(generator.chunks) : generator.chunks;
+        return this;
+    }
+}
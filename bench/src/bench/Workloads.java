@@ -0,0 +1,177 @@
+/**
+ * @ Author: turk
+ * @ Description: Umetni programi za merjenje.
+ */
+
+package bench;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Programi, katerih velikost je odvisna od parametra `scale`.
+ * Vsak program je deterministično določen s `scale`, zato so meritve
+ * med zagoni primerljive.
+ */
+public class Workloads {
+    private Workloads() {}
+
+    public static Workload[] all(int scale, int optimizationLevel) {
+        return new Workload[] {
+            deepNesting(scale, optimizationLevel),
+            deepExpressions(scale, optimizationLevel),
+            manyFunctions(scale, optimizationLevel),
+            bigArrays(scale, optimizationLevel),
+            hotLoop(scale, optimizationLevel),
+            generated(scale, optimizationLevel),
+        };
+    }
+
+    /**
+     * Program, ki ga generira `ProgramGenerator` s privzetimi nastavitvami.
+     */
+    public static Workload generated(int scale, int optimizationLevel) {
+        var generator = new ProgramGenerator();
+        generator.functions = 64 * scale;
+        var output = new ByteArrayOutputStream();
+        generator.generate(output);
+        return new Workload("generated", output.toString(StandardCharsets.UTF_8), generator.memory(), optimizationLevel);
+    }
+
+    /**
+     * Gnezdene funkcije - vsaka v svojem bloku `where` s svojo spremenljivko.
+     */
+    public static Workload deepNesting(int scale, int optimizationLevel) {
+        int depth = 20 * scale;
+        var sb = new StringBuilder();
+        sb.append("fun main(x: integer): integer = (\n");
+        sb.append("    print_int(f0(1)),\n");
+        sb.append("    0\n");
+        sb.append(");\n");
+        for (int i = 0; i < depth; i++) {
+            var indent = "    ".repeat(i);
+            sb.append(indent).append("fun f").append(i).append("(a: integer): integer = (\n");
+            sb.append(indent).append("    { v = a + ").append(i).append(" },\n");
+            if (i + 1 < depth) {
+                sb.append(indent).append("    f").append(i + 1).append("(v) + v\n");
+            } else {
+                sb.append(indent).append("    v * 2\n");
+            }
+            sb.append(indent).append(") { where\n");
+            sb.append(indent).append("    var v: integer");
+            sb.append(i + 1 < depth ? ";\n" : "\n");
+        }
+        for (int i = depth - 1; i >= 0; i--) {
+            sb.append("    ".repeat(i)).append("}\n");
+        }
+        return new Workload("deep-nesting", sb.toString(), 1 << 16, optimizationLevel);
+    }
+
+    /**
+     * Globoko gnezden izraz, v katerem ima vsak nivo klic funkcije
+     * (linearizacija na vsakem nivoju izraza ustvari stavke).
+     */
+    public static Workload deepExpressions(int scale, int optimizationLevel) {
+        int depth = 500 * scale;
+        var sb = new StringBuilder();
+        sb.append("fun main(x: integer): integer = (\n");
+        sb.append("    print_int(");
+        for (int i = 0; i < depth; i++) {
+            sb.append("g(").append(i).append(i % 2 == 0 ? ") + (" : ") - (");
+        }
+        sb.append("0");
+        sb.append(")".repeat(depth));
+        sb.append("),\n");
+        sb.append("    0\n");
+        sb.append(");\n");
+        sb.append("fun g(a: integer): integer = a * 2\n");
+        return new Workload("deep-expressions", sb.toString(), 1 << 16, optimizationLevel);
+    }
+
+    /**
+     * Veliko funkcij na istem nivoju, ki jih kliče `main`.
+     */
+    public static Workload manyFunctions(int scale, int optimizationLevel) {
+        int count = 200 * scale;
+        var sb = new StringBuilder();
+        sb.append("fun main(x: integer): integer = (\n");
+        sb.append("    { s = 0 },\n");
+        for (int i = 0; i < count; i++) {
+            sb.append("    { s = s + g").append(i).append("(").append(i).append(", s) },\n");
+        }
+        sb.append("    print_int(s),\n");
+        sb.append("    0\n");
+        sb.append(") { where\n");
+        sb.append("    var s: integer\n");
+        sb.append("}");
+        for (int i = 0; i < count; i++) {
+            sb.append(";\n");
+            sb.append("fun g").append(i).append("(a: integer, b: integer): integer = (\n");
+            sb.append("    { if a * ").append(i % 7 + 1).append(" > b / 2 then { r = a + ").append(i).append(" } else { r = b - a } },\n");
+            sb.append("    r\n");
+            sb.append(") { where\n");
+            sb.append("    var r: integer\n");
+            sb.append("}");
+        }
+        sb.append("\n");
+        return new Workload("many-functions", sb.toString(), 1 << 16, optimizationLevel);
+    }
+
+    /**
+     * Velika globalna tabela, ki jo napolnimo, podamo funkciji in seštejemo.
+     */
+    public static Workload bigArrays(int scale, int optimizationLevel) {
+        int size = 10000 * scale;
+        var source = """
+            typ vec: arr[%d] integer;
+            var a: vec;
+
+            fun main(x: integer): integer = (
+                { for i = 0, %d, 1:
+                    { a[i] = i * 3 }
+                },
+                print_int(sum(a)),
+                0
+            ) { where
+                var i: integer
+            };
+
+            fun sum(v: vec): integer = (
+                { acc = 0 },
+                { for j = 0, %d, 1:
+                    { acc = acc + v[j] }
+                },
+                acc
+            ) { where
+                var acc: integer;
+                var j: integer
+            }
+            """.formatted(size, size, size);
+        return new Workload("big-arrays", source, 3 * 4 * size + (1 << 16), optimizationLevel);
+    }
+
+    /**
+     * Vroča zanka z aritmetiko in pogojem.
+     */
+    public static Workload hotLoop(int scale, int optimizationLevel) {
+        int iterations = 100000 * scale;
+        var source = """
+            fun main(x: integer): integer = (
+                { s = 0 },
+                { for i = 0, %d, 1:
+                    { if i - i / 3 * 3 == 0 then
+                        { s = s + i * 2 }
+                    else
+                        { s = s - i / 2 }
+                    }
+                },
+                print_int(s),
+                0
+            ) { where
+                var s: integer;
+                var i: integer
+            }
+            """.formatted(iterations);
+        return new Workload("hot-loop", source, 1 << 16, optimizationLevel);
+    }
+}
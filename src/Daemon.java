@@ -0,0 +1,130 @@
+/**
+ * @Author: turk
+ * @Description: Strežnik, ki v enem procesu prevede več programov.
+ */
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import ArgPar.Exception.ParseException;
+import cli.PINS;
+import common.Report;
+import compiler.frm.Frame;
+
+/**
+ * Prevajalnik kot dolgo živeč proces - zagon JVM in ogrevanje JIT plačamo le enkrat.
+ *
+ * Uporaba:
+ *   Daemon               zahteve bere s standardnega vhoda, odgovore piše na standardni izhod
+ *   Daemon --port N      posluša na lokalnih vratih N (127.0.0.1)
+ *
+ * Zahteva je ena vrstica z argumenti, enakimi kot pri `Main` (brez imena ukaza),
+ * ločenimi s presledki, npr. `izvorna --exec INT --dump INT`.
+ * Vrstica `quit` konča sejo.
+ *
+ * Odgovor je vrstica `<status> <dolžina>`, ki ji sledi natanko `<dolžina>` bajtov
+ * izpisa prevajalnika (standardni izhod in izhod za napake, UTF-8).
+ * Status je 0 ob uspehu, 99 ob napaki v programu, 2 ob napačnih argumentih
+ * in 1 ob notranji napaki prevajalnika.
+ *
+ * Zahteve se izvajajo zaporedno. Pred vsako zahtevo ponastavimo števce
+ * začasnih spremenljivk in label, zato je izpis enak kot pri zagonu `Main`.
+ */
+public class Daemon {
+    private static final int statusOk = 0;
+    private static final int statusInternalError = 1;
+    private static final int statusBadArguments = 2;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2 && args[0].equals("--port")) {
+            serve(Integer.parseInt(args[1]));
+        } else if (args.length == 0) {
+            session(System.in, System.out);
+        } else {
+            System.err.println("Usage: Daemon [--port N]");
+            System.exit(statusBadArguments);
+        }
+    }
+
+    /**
+     * Sprejema povezave na lokalnih vratih, eno za drugo.
+     */
+    private static void serve(int port) throws IOException {
+        try (var server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            while (true) {
+                try (var socket = server.accept()) {
+                    session(socket.getInputStream(), socket.getOutputStream());
+                } catch (IOException e) {
+                    System.err.println("Povezava prekinjena: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Obdela zahteve ene seje.
+     */
+    private static void session(InputStream in, OutputStream out) throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.equals("quit")) {
+                break;
+            }
+            var output = new ByteArrayOutputStream();
+            int status = compile(line.split("\\s+"), output);
+            out.write((status + " " + output.size() + "\n").getBytes(StandardCharsets.UTF_8));
+            output.writeTo(out);
+            out.flush();
+        }
+    }
+
+    /**
+     * Prevede en program. Izpis prevajalnika preusmeri v `output`.
+     *
+     * @return Status zahteve.
+     */
+    private static int compile(String[] args, ByteArrayOutputStream output) {
+        var stream = new PrintStream(output, true, StandardCharsets.UTF_8);
+        var stdout = System.out;
+        var stderr = System.err;
+        var reportErr = Report.err;
+        System.setOut(stream);
+        System.setErr(stream);
+        Report.err = stream;
+        try {
+            Frame.resetCounters();
+            List<String> arguments = new ArrayList<>();
+            arguments.add("PINS");
+            arguments.addAll(List.of(args));
+            Main.run(PINS.parseOrThrow(arguments.toArray(new String[0])));
+            return statusOk;
+        } catch (ParseException e) {
+            return statusBadArguments;
+        } catch (Report.CompilationException e) {
+            return e.exitCode;
+        } catch (Exception | StackOverflowError e) {
+            e.printStackTrace(stream);
+            return statusInternalError;
+        } finally {
+            stream.flush();
+            System.setOut(stdout);
+            System.setErr(stderr);
+            Report.err = reportErr;
+        }
+    }
+}
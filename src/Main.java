@@ -26,10 +26,15 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import cli.PINS;
 import cli.PINS.Phase;
+import common.DumpWriter;
+import common.PhaseMetrics;
+import common.Report;
 <<<<<<< HEAD
 <<<<<<< HEAD
 <<<<<<< HEAD
@@ -40,17 +45,31 @@ import cli.PINS.Phase;
 >>>>>>> repo6/main
 =======
 >>>>>>> repo7/main
+import compiler.common.AstNodeCounter;
 import compiler.common.PrettyPrintVisitor4;
 import compiler.frm.Access;
 import compiler.frm.Frame;
+import compiler.frm.EscapeAnalysis;
 import compiler.frm.FrameEvaluator;
 <<<<<<< HEAD
 <<<<<<< HEAD
 import compiler.gen.LinCodeGenerator;
+import compiler.gen.Linker;
 import compiler.gen.Memory;
+import compiler.gen.ProgramImage;
+import compiler.interpret.InstructionProfile;
 import compiler.interpret.Interpreter;
+import compiler.interpret.Profiler;
+import compiler.interpret.bytecode.BytecodeCompiler;
+import compiler.interpret.bytecode.StackMachine;
+import compiler.interpret.register.RegisterCompiler;
+import compiler.interpret.register.RegisterMachine;
 import compiler.ir.IRCodeGenerator;
 import compiler.ir.IRPrettyPrint;
+import compiler.ir.IRStatistics;
+import compiler.ir.cfg.ControlFlowGraph;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.opt.ConstantFolding;
 =======
 import compiler.common.PrettyPrintVisitor1;
 import compiler.common.PrettyPrintVisitor2;
@@ -65,7 +84,10 @@ import compiler.ir.IRCodeGenerator;
 import compiler.ir.IRPrettyPrint;
 >>>>>>> repo7/main
 import compiler.lexer.Lexer;
+import compiler.lexer.Symbol;
+import compiler.parser.AstCache;
 import compiler.parser.Parser;
+import compiler.parser.ast.Ast;
 import compiler.parser.ast.def.Def;
 import compiler.seman.common.NodeDescription;
 import compiler.seman.name.NameChecker;
@@ -117,27 +139,130 @@ public class Main {
      */
     public static void main(String[] args) throws Exception {
         var cli = PINS.parse(args);
-        run(cli);
+        try {
+            run(cli);
+        } catch (Report.CompilationException e) {
+            System.exit(e.exitCode);
+        }
     }
 
 
     // -------------------------------------------------------------------
 
 
-    private static void run(PINS cli) throws IOException {
+    static void run(PINS cli) throws IOException {
+        if (cli.runImage) {
+            runImage(cli);
+            return;
+        }
         var sourceCode = Files.readString(Paths.get(cli.sourceFile));
-        run(cli, sourceCode);
+        var metrics = new PhaseMetrics(cli.metrics != PhaseMetrics.Format.NONE);
+        DumpWriter dump;
+        if (cli.dumpTo.isEmpty()) {
+            dump = new DumpWriter(System.out);
+        } else {
+            try {
+                dump = DumpWriter.open(Paths.get(cli.dumpTo));
+            } catch (IOException e) {
+                Report.error("Izpisa ni mogoče zapisati v " + cli.dumpTo + "!");
+                return;
+            }
+        }
+        try (dump) {
+            run(cli, sourceCode, metrics, dump);
+        } finally {
+            metrics.print(System.err, cli.metrics);
+        }
+    }
+
+    /**
+     * Izvede sliko programa, zapisano z `--emit-image`.
+     */
+    private static void runImage(PINS cli) throws IOException {
+        ProgramImage image;
+        try {
+            image = ProgramImage.read(Paths.get(cli.sourceFile));
+        } catch (IllegalArgumentException e) {
+            Report.error("Neveljavna slika programa " + cli.sourceFile + ": " + e.getMessage());
+            return;
+        }
+        var memory = image.load();
+        var mainCodeChunk = image.mainChunk();
+        if (mainCodeChunk.isPresent()) {
+            execute(cli, memory, image.optimizationLevel, image.codeChunks(), mainCodeChunk.get(), Optional.of(System.out));
+        }
     }
 
-    private static void run(PINS cli, String sourceCode) {
+    /**
+     * Izvede linearizirano kodo na izbranem navideznem stroju.
+     */
+    private static void execute(
+        PINS cli,
+        Memory memory,
+        int optimizationLevel,
+        List<Chunk.CodeChunk> codeChunks,
+        Chunk.CodeChunk mainCodeChunk,
+        Optional<PrintStream> outputStream
+    ) {
+        if (cli.virtualMachine == PINS.VirtualMachine.STACK) {
+            var program = new BytecodeCompiler(memory, optimizationLevel).compile(codeChunks);
+            var machine = new StackMachine(memory, outputStream, cli.countInstructions);
+            machine.interpret(program);
+            machine.executedInstructions().ifPresent(executed -> InstructionProfile.print(System.err, executed, compiler.interpret.bytecode.Opcode.class));
+        } else if (cli.virtualMachine == PINS.VirtualMachine.REGISTER) {
+            var program = new RegisterCompiler(memory, optimizationLevel).compile(codeChunks);
+            var machine = new RegisterMachine(memory, outputStream, cli.countInstructions);
+            machine.interpret(program);
+            machine.executedInstructions().ifPresent(executed -> InstructionProfile.print(System.err, executed, compiler.interpret.register.Opcode.class));
+        } else {
+            Optional<Profiler> profiler = (cli.profile || !cli.profileCollapsed.isEmpty()) ? Optional.of(new Profiler()) : Optional.empty();
+            var linker = new Linker(memory);
+            var functions = linker.link(codeChunks);
+            profiler.ifPresent(p -> codeChunks.forEach(chunk -> p.describeAs(linker.linked(chunk), chunk)));
+            var interpreter = new Interpreter(memory, functions, outputStream, profiler);
+            interpreter.interpret(linker.linked(mainCodeChunk));
+            if (profiler.isPresent() && cli.profile) {
+                profiler.get().printReport(System.err);
+            }
+            if (profiler.isPresent() && !cli.profileCollapsed.isEmpty()) {
+                try (var stream = new PrintStream(cli.profileCollapsed)) {
+                    profiler.get().printCollapsedStacks(stream);
+                } catch (IOException e) {
+                    Report.error("Profila ni mogoče zapisati v " + cli.profileCollapsed + "!");
+                }
+            }
+        }
+    }
+
+    /**
+     * Izpisi faz gredo v `dump`, ki ga po vsakem izpisu izpraznimo,
+     * da je vrstni red glede na sporočila o napakah ohranjen.
+     */
+    private static void run(PINS cli, String sourceCode, PhaseMetrics metrics, DumpWriter dump) {
+        /**
+         * Drevo iz predpomnilnika - le, če ne potrebujemo simbolov ali izpisa produkcij.
+         */
+        boolean cacheable = !cli.astCache.isEmpty()
+                && cli.execPhase != Phase.LEX
+                && !cli.dumpPhases.contains(Phase.LEX)
+                && !cli.dumpPhases.contains(Phase.SYN);
+        Optional<AstCache> astCache = cacheable ? Optional.of(new AstCache(Paths.get(cli.astCache))) : Optional.empty();
         /**
          * Izvedi leksikalno analizo.
          */
-        var symbols = new Lexer(sourceCode).scan();
+        metrics.begin(Phase.LEX);
+        Optional<Ast> cachedAst = astCache.flatMap(cache -> cache.load(sourceCode));
+        List<Symbol> symbols = cachedAst.isPresent() ? List.of() : new Lexer(sourceCode).scan();
+        if (cachedAst.isPresent()) {
+            metrics.count("astCacheHits", () -> 1);
+        } else {
+            metrics.count("tokens", () -> symbols.size());
+        }
         if (cli.dumpPhases.contains(Phase.LEX)) {
             for (var symbol : symbols) {
-                System.out.println(symbol.toString());
+                dump.println(symbol.toString());
             }
+            dump.flush();
         }
         if (cli.execPhase == Phase.LEX) {
             return;
@@ -164,8 +289,9 @@ public class Main {
         /**
          * Izvedi sintaksno analizo.
          */
+        metrics.begin(Phase.SYN);
         Optional<PrintStream> out = cli.dumpPhases.contains(Phase.SYN) 
-                ? Optional.of(System.out)
+                ? Optional.of(dump.asPrintStream())
                 : Optional.empty();
         var parser = new Parser(symbols, out);
 <<<<<<< HEAD
@@ -184,19 +310,29 @@ public class Main {
 >>>>>>> repo6/main
 =======
 >>>>>>> repo7/main
-        var ast = parser.parse();
+        var ast = cachedAst.orElseGet(parser::parse);
+        if (cachedAst.isEmpty()) {
+            astCache.ifPresent(cache -> cache.store(sourceCode, ast));
+        }
+        dump.flush();
+        metrics.count("astNodes", () -> {
+            var counter = new AstNodeCounter();
+            ast.accept(counter);
+            return counter.count;
+        });
         if (cli.execPhase == Phase.SYN) {
             return;
         }
         /**
          * Abstraktna sintaksa.
          */
+        metrics.begin(Phase.AST);
 <<<<<<< HEAD
 <<<<<<< HEAD
 <<<<<<< HEAD
 <<<<<<< HEAD
 <<<<<<< HEAD
-        var prettyPrint = new PrettyPrintVisitor4(2, System.out);
+        var prettyPrint = new PrettyPrintVisitor4(2, dump);
 =======
         var prettyPrint = new PrettyPrintVisitor1(2, System.out);
 >>>>>>> repo3/main
@@ -214,6 +350,7 @@ public class Main {
 >>>>>>> repo7/main
         if (cli.dumpPhases.contains(Phase.AST)) {
             ast.accept(prettyPrint);
+            dump.flush();
         }
         if (cli.execPhase == Phase.AST) {
             return;
@@ -234,6 +371,7 @@ public class Main {
         /**
          * Izvedi razreševanje imen.
          */
+        metrics.begin(Phase.NAME);
         SymbolTable symbolTable = new FastSymbolTable();
         var definitions = new NodeDescription<Def>();
         var nameChecker = new NameChecker(definitions, symbolTable);
@@ -241,6 +379,7 @@ public class Main {
         if (cli.dumpPhases.contains(Phase.NAME)) {
             prettyPrint.definitions = Optional.of(definitions);
             ast.accept(prettyPrint);
+            dump.flush();
         }
         if (cli.execPhase == Phase.NAME) {
             return;
@@ -258,6 +397,7 @@ public class Main {
         /**
          * Izvedi preverjanje tipov.
          */
+        metrics.begin(Phase.TYP);
         var types = new NodeDescription<Type>();
         var typeChecker = new TypeChecker(definitions, types);
         ast.accept(typeChecker);
@@ -275,6 +415,7 @@ public class Main {
             prettyPrint.definitions = Optional.of(definitions);
             prettyPrint.types = Optional.of(types);
             ast.accept(prettyPrint);
+            dump.flush();
         }
         if (cli.execPhase == Phase.TYP) {
             return;
@@ -289,9 +430,11 @@ public class Main {
         /**
          * Izvedi analizo klicnih zapisov in dostopov.
          */
+        metrics.begin(Phase.FRM);
         var frames = new NodeDescription<Frame>();
         var accesses = new NodeDescription<Access>();
-        var frameEvaluator = new FrameEvaluator(frames, accesses, definitions, types);
+        Set<Def> registers = cli.optimizationLevel > 0 ? EscapeAnalysis.registers(ast, definitions, types) : Set.of();
+        var frameEvaluator = new FrameEvaluator(frames, accesses, definitions, types, registers);
         ast.accept(frameEvaluator);
         if (cli.dumpPhases.contains(Phase.FRM)) {
             prettyPrint.definitions = Optional.of(definitions);
@@ -299,6 +442,7 @@ public class Main {
             prettyPrint.frames = Optional.of(frames);
             prettyPrint.accesses = Optional.of(accesses);
             ast.accept(prettyPrint);
+            dump.flush();
         }
         if (cli.execPhase == Phase.FRM) {
             return;
@@ -310,10 +454,18 @@ public class Main {
         /**
          * Generiranje vmesne kode.
          */
+        metrics.begin(Phase.IMC);
         var generator = new IRCodeGenerator(new NodeDescription<>(), frames, accesses, definitions, types);
         ast.accept(generator);
+        if (cli.optimizationLevel > 0) {
+            generator.chunks = new ConstantFolding().fold(generator.chunks);
+        }
+        var chunks = generator.chunks;
+        metrics.count("chunks", () -> chunks.size());
+        metrics.count("irNodes", () -> IRStatistics.nodes(chunks));
         if (cli.dumpPhases.contains(Phase.IMC)) {
-            new IRPrettyPrint(System.out, 2).print(generator.chunks);
+            new IRPrettyPrint(dump, 2).print(generator.chunks);
+            dump.flush();
         }
         if (cli.execPhase == Phase.IMC) {
             return;
@@ -322,18 +474,45 @@ public class Main {
         /**
          * Linearizacija vmesne kode.
          */
+        metrics.begin(Phase.CFG);
         var memory = new Memory(cli.memory);
-        var mainCodeChunk = new LinCodeGenerator(memory).generateCode(generator.chunks);
+        var linGenerator = new LinCodeGenerator(memory, cli.optimizationLevel);
+        var mainCodeChunk = linGenerator.generateCode(generator.chunks);
+        metrics.count("linearIrNodes", () -> IRStatistics.nodes(linGenerator.codeChunks));
+        metrics.count("temps", () -> IRStatistics.temps(linGenerator.codeChunks));
+        /**
+         * Graf poteka kontrole.
+         */
+        if (cli.dumpPhases.contains(Phase.CFG)) {
+            var printer = new IRPrettyPrint(dump, 2);
+            for (var chunk : linGenerator.codeChunks) {
+                printer.print(ControlFlowGraph.build(chunk));
+            }
+            dump.flush();
+        }
+        /**
+         * Slika programa.
+         */
+        if (!cli.emitImage.isEmpty()) {
+            try {
+                ProgramImage.of(memory, cli.optimizationLevel, generator.chunks).write(Paths.get(cli.emitImage));
+            } catch (IOException e) {
+                Report.error("Slike programa ni mogoče zapisati v " + cli.emitImage + "!");
+            }
+        }
+        if (cli.execPhase == Phase.CFG) {
+            return;
+        }
         if (!cli.dumpPhases.contains(Phase.INT)) {
             return;
         }
         /**
          * Izvajanje vmesne kode.
          */
+        metrics.begin(Phase.INT);
         if (mainCodeChunk.isPresent()) {
             Optional<PrintStream> outputStream = cli.dumpPhases.contains(Phase.INT) ? Optional.of(System.out) : Optional.empty();
-            var interpreter = new Interpreter(memory, outputStream);
-            interpreter.interpret(mainCodeChunk.get());
+            execute(cli, memory, cli.optimizationLevel, linGenerator.codeChunks, mainCodeChunk.get(), outputStream);
         }
 =======
 >>>>>>> repo1/main
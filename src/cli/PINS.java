@@ -9,9 +9,11 @@ import java.util.EnumSet;
 
 import ArgPar.Annotation.ParsableArgument;
 import ArgPar.Annotation.ParsableCommand;
+import ArgPar.Annotation.ParsableFlag;
 import ArgPar.Annotation.ParsableOption;
 import ArgPar.Exception.ParseException;
 import ArgPar.Parser.ArgumentParser;
+import common.PhaseMetrics;
 
 @ParsableCommand(commandName = "PINS", description = "Prevajalnik za programski jezik PINS")
 public class PINS {
@@ -60,26 +62,111 @@ public class PINS {
     @ParsableOption(name = "--memory")
     public int memory = 1024;
 
+    /**
+     * Stopnja optimizacije vmesne kode (0 - brez optimizacij).
+     */
+    @ParsableOption(name = "--optimize")
+    public int optimizationLevel = 0;
+
+    /**
+     * Navidezni stroj, ki izvede vmesno kodo.
+     */
+    @ParsableOption(name = "--vm")
+    public VirtualMachine virtualMachine = VirtualMachine.TREE;
+
+    /**
+     * Po izvajanju na standardni izhod za napake izpiše število izvedenih ukazov
+     * (samo za navidezna stroja STACK in REGISTER).
+     */
+    @ParsableFlag(name = "--count-instructions")
+    public boolean countInstructions = false;
+
+    /**
+     * Po izvajanju na standardni izhod za napake izpiše profil izvajanja
+     * (samo za navidezni stroj TREE).
+     */
+    @ParsableFlag(name = "--profile")
+    public boolean profile = false;
+
+    /**
+     * Datoteka, v katero zapišemo profil izvajanja po klicnih skladih
+     * (za izris grafov plamenov).
+     */
+    @ParsableOption(name = "--profile-collapsed")
+    public String profileCollapsed = "";
+
+    /**
+     * Oblika izpisa metrik faz prevajanja (čas, procesorski čas, alocirani bajti
+     * in števci) na standardni izhod za napake.
+     */
+    @ParsableOption(name = "--metrics")
+    public PhaseMetrics.Format metrics = PhaseMetrics.Format.NONE;
+
+    /**
+     * Datoteka, v katero se zapišejo izpisi faz (privzeto standardni izhod).
+     */
+    @ParsableOption(name = "--dump-to")
+    public String dumpTo = "";
+
+    /**
+     * Direktorij, v katerem hranimo razčlenjena drevesa. Če izvorna koda
+     * od prejšnjega zagona ni spremenjena, drevo preberemo od tam
+     * (privzeto brez predpomnilnika).
+     */
+    @ParsableOption(name = "--ast-cache")
+    public String astCache = "";
+
+    /**
+     * Po linearizaciji zapiše sliko programa v podano datoteko.
+     */
+    @ParsableOption(name = "--emit-image")
+    public String emitImage = "";
+
+    /**
+     * Izvorna datoteka je slika programa (`--emit-image`), ki jo neposredno
+     * izvedemo na izbranem navideznem stroju, brez faz prevajanja.
+     */
+    @ParsableFlag(name = "--run-image")
+    public boolean runImage = false;
+
     /**
      * Razčleni argumente.
      */
     public static PINS parse(String[] args) {
         try {
-            var parser = new ArgumentParser<PINS>(PINS.class);
-            return parser.parse(args);
+            return parseOrThrow(args);
         } catch (ParseException __) {
             System.exit(2);
             return null;
         }
     }
 
+    /**
+     * Razčleni argumente; ob napaki vrže izjemo namesto izhoda iz procesa.
+     */
+    public static PINS parseOrThrow(String[] args) throws ParseException {
+        var parser = new ArgumentParser<PINS>(PINS.class);
+        return parser.parse(args);
+    }
+
     // --------------------------------------------------------------
 
     /**
      * Faze prevajanja.
      */
     public static enum Phase {
-        LEX, SYN, AST, NAME, TYP, FRM, IMC, INT
+        LEX, SYN, AST, NAME, TYP, FRM, IMC, CFG, INT
+    }
+
+    /**
+     * Navidezni stroji.
+     *
+     * TREE  - tolmač drevesa vmesne kode
+     * STACK - skladovni stroj (glej `compiler.interpret.bytecode`)
+     * REGISTER - registrski stroj (glej `compiler.interpret.register`)
+     */
+    public static enum VirtualMachine {
+        TREE, STACK, REGISTER
     }
 
     /**
@@ -0,0 +1,244 @@
+/**
+ * @ Author: turk
+ * @ Description: Medpomnjen izhod za izpise vmesnih rezultatov.
+ */
+
+package common;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Skupen izhod za izpise faz prevajanja.
+ *
+ * Znake zapisuje v velik medpomnilnik, ki ga izprazni šele, ko se napolni,
+ * ali ob klicu `flush`. Indentacijo zapiše iz vnaprej pripravljenega polja
+ * presledkov, nizi ASCII pa se v medpomnilnik prepišejo brez vmesnih objektov.
+ *
+ * Izhod je lahko izhodni tok (npr. `System.out`) ali datoteka, v katero
+ * pišemo neposredno prek `FileChannel`.
+ */
+public class DumpWriter extends OutputStream {
+    private static final int bufferSize = 1 << 16;
+
+    /**
+     * Presledki za indentacijo.
+     */
+    private static final byte[] spaces = new byte[256];
+
+    static {
+        Arrays.fill(spaces, (byte) ' ');
+    }
+
+    private static final String lineSeparator = System.lineSeparator();
+
+    private final byte[] buffer = new byte[bufferSize];
+
+    private int position = 0;
+
+    /**
+     * Izhodni tok (če pišemo v tok).
+     */
+    private final OutputStream stream;
+
+    /**
+     * Datoteka (če pišemo v datoteko).
+     */
+    private final FileChannel channel;
+
+    /**
+     * Kodiranje znakov, ki niso ASCII.
+     */
+    private final Charset charset;
+
+    /**
+     * Pogled na ta izhod kot `PrintStream` (za razčlenjevalnik).
+     */
+    private PrintStream printStream;
+
+    /**
+     * Ustvari izhod, ki piše v `stream` z enakim kodiranjem kot `stream`.
+     */
+    public DumpWriter(PrintStream stream) {
+        this(stream, stream.charset());
+    }
+
+    public DumpWriter(OutputStream stream, Charset charset) {
+        requireNonNull(stream);
+        requireNonNull(charset);
+        this.stream = stream;
+        this.channel = null;
+        this.charset = charset;
+    }
+
+    private DumpWriter(FileChannel channel) {
+        this.stream = null;
+        this.channel = channel;
+        this.charset = StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Ustvari izhod, ki piše v datoteko `path` (UTF-8).
+     * Obstoječo datoteko prepiše.
+     */
+    public static DumpWriter open(Path path) throws IOException {
+        requireNonNull(path);
+        return new DumpWriter(FileChannel.open(path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    // --------------------------------------
+
+    /**
+     * Izpiše `count` presledkov.
+     */
+    public void indent(int count) {
+        if (count < 0) { throw new IllegalArgumentException("Indent must be at least 0!"); }
+        while (count > 0) {
+            int length = Math.min(count, spaces.length);
+            write(spaces, 0, length);
+            count -= length;
+        }
+    }
+
+    public void print(String str) {
+        int length = str.length();
+        if (length > buffer.length - position) {
+            drain();
+            if (length > buffer.length) {
+                write(str.getBytes(charset));
+                return;
+            }
+        }
+        int start = position;
+        for (int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+            if (c >= 0x80) {
+                position = start;
+                write(str.getBytes(charset));
+                return;
+            }
+            buffer[position++] = (byte) c;
+        }
+    }
+
+    public void print(char c) {
+        if (c >= 0x80) {
+            print(String.valueOf(c));
+            return;
+        }
+        write(c);
+    }
+
+    public void println(String str) {
+        print(str);
+        println();
+    }
+
+    public void println() {
+        print(lineSeparator);
+    }
+
+    /**
+     * Vrne pogled na ta izhod kot `PrintStream`.
+     * Kar zapišemo vanj, se zapiše v isti medpomnilnik.
+     */
+    public PrintStream asPrintStream() {
+        if (printStream == null) {
+            printStream = new PrintStream(this, false, charset);
+        }
+        return printStream;
+    }
+
+    // --------------------------------------
+
+    @Override
+    public void write(int b) {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes) {
+        write(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        if (length > buffer.length - position) {
+            drain();
+            if (length > buffer.length) {
+                writeOut(ByteBuffer.wrap(bytes, offset, length));
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * Zapiše vsebino medpomnilnika in izprazni izhodni tok.
+     */
+    @Override
+    public void flush() {
+        drain();
+        if (stream != null) {
+            try {
+                stream.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Zapiše vsebino medpomnilnika. Datoteko zapre, izhodnega toka pa ne.
+     */
+    @Override
+    public void close() {
+        flush();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void drain() {
+        if (position > 0) {
+            writeOut(ByteBuffer.wrap(buffer, 0, position));
+            position = 0;
+        }
+    }
+
+    private void writeOut(ByteBuffer bytes) {
+        try {
+            if (channel != null) {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            } else {
+                stream.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
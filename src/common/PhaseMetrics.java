@@ -0,0 +1,206 @@
+/**
+ * @ Author: turk
+ * @ Description: Merjenje porabe virov po fazah prevajanja.
+ */
+
+package common;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import cli.PINS.Phase;
+
+/**
+ * Za vsako fazo prevajanja beleži pretečeni čas, procesorski čas in
+ * število alociranih bajtov niti, ki prevaja. Poleg tega hrani števce
+ * (število simbolov, vozlišč AST, ...), ki jih nastavi prevajalnik.
+ *
+ * Faza traja od klica `begin` do naslednjega klica `begin` ali `end`.
+ * Če merjenje ni vklopljeno, so vse metode prazne.
+ */
+public class PhaseMetrics {
+    /**
+     * Oblika izpisa.
+     */
+    public static enum Format {
+        NONE, TABLE, JSON
+    }
+
+    private final boolean enabled;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final Map<Phase, Sample> phases = new EnumMap<>(Phase.class);
+
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+
+    /**
+     * Trenutna faza, `null`, če nobena faza ni aktivna.
+     */
+    private Phase current;
+
+    /**
+     * Stanje ob začetku trenutne faze.
+     */
+    private Sample start;
+
+    public PhaseMetrics(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled && threads.isThreadCpuTimeSupported() && !threads.isThreadCpuTimeEnabled()) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+    }
+
+    // --------- beleženje ----------
+
+    /**
+     * Zaključi trenutno fazo in začne fazo `phase`.
+     */
+    public void begin(Phase phase) {
+        requireNonNull(phase);
+        if (!enabled) {
+            return;
+        }
+        end();
+        current = phase;
+        start = sample();
+    }
+
+    /**
+     * Zaključi trenutno fazo.
+     */
+    public void end() {
+        if (!enabled || current == null) {
+            return;
+        }
+        var now = sample();
+        var elapsed = new Sample(
+            now.wall - start.wall,
+            start.cpu < 0 ? -1 : now.cpu - start.cpu,
+            start.allocated < 0 ? -1 : now.allocated - start.allocated);
+        phases.merge(current, elapsed, Sample::add);
+        current = null;
+    }
+
+    /**
+     * Nastavi števec `name`. Vrednost se izračuna le, če je merjenje vklopljeno.
+     * Med izračunom je trenutna faza ustavljena, zato se čas štetja
+     * ne prišteje k času prevajanja.
+     */
+    public void count(String name, LongSupplier value) {
+        requireNonNull(name, value);
+        if (!enabled) {
+            return;
+        }
+        var phase = current;
+        end();
+        counters.put(name, value.getAsLong());
+        if (phase != null) {
+            begin(phase);
+        }
+    }
+
+    // --------- izpis ----------
+
+    public void print(PrintStream stream, Format format) {
+        requireNonNull(stream, format);
+        if (!enabled) {
+            return;
+        }
+        end();
+        if (format == Format.TABLE) {
+            printTable(stream);
+        } else if (format == Format.JSON) {
+            printJson(stream);
+        }
+    }
+
+    private void printTable(PrintStream stream) {
+        stream.println("Metrike prevajanja:");
+        stream.printf("  %-8s %12s %12s %16s%n", "faza", "čas[ms]", "CPU[ms]", "alocirano[B]");
+        var total = new Sample(0, 0, 0);
+        for (var entry : phases.entrySet()) {
+            printRow(stream, entry.getKey().toString(), entry.getValue());
+            total = total.add(entry.getValue());
+        }
+        printRow(stream, "SKUPAJ", total);
+        if (!counters.isEmpty()) {
+            stream.println("Števci:");
+            for (var entry : counters.entrySet()) {
+                stream.printf("  %-14s %12d%n", entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static void printRow(PrintStream stream, String name, Sample sample) {
+        stream.printf("  %-8s %12.3f %12s %16s%n",
+            name,
+            sample.wall / 1e6,
+            sample.cpu < 0 ? "-" : String.format("%.3f", sample.cpu / 1e6),
+            sample.allocated < 0 ? "-" : String.valueOf(sample.allocated));
+    }
+
+    private void printJson(PrintStream stream) {
+        var json = new StringBuilder();
+        json.append("{\"phases\":[");
+        var separator = "";
+        for (var entry : phases.entrySet()) {
+            var sample = entry.getValue();
+            json.append(separator)
+                .append("{\"phase\":\"").append(entry.getKey()).append('"')
+                .append(",\"wallNanos\":").append(sample.wall)
+                .append(",\"cpuNanos\":").append(sample.cpu)
+                .append(",\"allocatedBytes\":").append(sample.allocated)
+                .append('}');
+            separator = ",";
+        }
+        json.append("],\"counters\":{");
+        separator = "";
+        for (var entry : counters.entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+            separator = ",";
+        }
+        json.append("}}");
+        stream.println(json);
+    }
+
+    // --------- meritve ----------
+
+    /**
+     * Trenutno stanje niti. Vrednost -1 pomeni, da meritev ni podprta.
+     */
+    private Sample sample() {
+        long cpu = threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+        long allocated = -1;
+        if (threads instanceof com.sun.management.ThreadMXBean sunThreads && sunThreads.isThreadAllocatedMemorySupported()) {
+            allocated = sunThreads.getCurrentThreadAllocatedBytes();
+        }
+        return new Sample(System.nanoTime(), cpu, allocated);
+    }
+
+    private static class Sample {
+        final long wall;
+        final long cpu;
+        final long allocated;
+
+        Sample(long wall, long cpu, long allocated) {
+            this.wall = wall;
+            this.cpu = cpu;
+            this.allocated = allocated;
+        }
+
+        Sample add(Sample other) {
+            return new Sample(
+                wall + other.wall,
+                cpu < 0 || other.cpu < 0 ? -1 : cpu + other.cpu,
+                allocated < 0 || other.allocated < 0 ? -1 : allocated + other.allocated);
+        }
+    }
+}
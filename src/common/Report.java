@@ -25,13 +25,33 @@ public class Report {
 
     private Report() {}
 
+    /**
+     * Izpiše napako in prekine prevajanje z izjemo `CompilationException`.
+     * `Main` izjemo prestreže in proces konča s kodo `exitErrorCode`.
+     */
     public static void error(String message) {
         err.println(message);
-        System.exit(exitErrorCode);      
+        throw new CompilationException(message, exitErrorCode);
     }
 
     public static void error(Position position, String message) {
-        err.println(position.toString() + ": " + message);
-        System.exit(exitErrorCode);
+        error(position.toString() + ": " + message);
+    }
+
+    /**
+     * Napaka, ki prekine prevajanje.
+     */
+    public static class CompilationException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Izhodna koda procesa.
+         */
+        public final int exitCode;
+
+        public CompilationException(String message, int exitCode) {
+            super(message);
+            this.exitCode = exitCode;
+        }
     }
 }
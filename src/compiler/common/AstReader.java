@@ -0,0 +1,205 @@
+/**
+ * @ Author: turk
+ * @ Description: Branje AST, zapisanega z `AstWriter`.
+ */
+
+package compiler.common;
+
+import static common.RequireNonNull.requireNonNull;
+import static compiler.common.AstWriter.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import compiler.lexer.Position;
+import compiler.parser.ast.Ast;
+import compiler.parser.ast.def.*;
+import compiler.parser.ast.expr.*;
+import compiler.parser.ast.type.*;
+
+/**
+ * Iz bajtov, ki jih je zapisal `AstWriter`, zgradi enako drevo
+ * (z enakimi območji v izvorni kodi).
+ */
+public class AstReader {
+    private static final Binary.Operator[] binaryOperators = Binary.Operator.values();
+    private static final Unary.Operator[] unaryOperators = Unary.Operator.values();
+    private static final Atom.Type[] atomTypes = Atom.Type.values();
+
+    private final byte[] bytes;
+
+    private int offset;
+
+    private final int end;
+
+    /**
+     * Že prebrani nizi po indeksih.
+     */
+    private final List<String> strings = new ArrayList<>();
+
+    private AstReader(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Prebere drevo iz `length` bajtov od `offset` naprej.
+     *
+     * @throws IllegalArgumentException če bajti ne opisujejo drevesa.
+     */
+    public static Ast read(byte[] bytes, int offset, int length) {
+        requireNonNull(bytes);
+        var reader = new AstReader(bytes, offset, length);
+        try {
+            var ast = reader.readNode();
+            if (reader.offset != reader.end) {
+                throw new IllegalArgumentException("Trailing bytes after AST!");
+            }
+            return ast;
+        } catch (ClassCastException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed AST!", e);
+        }
+    }
+
+    private Ast readNode() {
+        byte tag = readByte();
+        var position = readPosition();
+        return switch (tag) {
+            case CALL -> {
+                var name = readString();
+                yield new Call(position, readList(Expr.class), name);
+            }
+            case BINARY -> {
+                var operator = binaryOperators[readInt()];
+                var left = readExpr();
+                yield new Binary(position, left, operator, readExpr());
+            }
+            case BLOCK -> new Block(position, readList(Expr.class));
+            case FOR -> {
+                var counter = (Name) readNode();
+                var low = readExpr();
+                var high = readExpr();
+                var step = readExpr();
+                yield new For(position, counter, low, high, step, readExpr());
+            }
+            case NAME -> new Name(position, readString());
+            case IF_THEN_ELSE -> {
+                boolean hasElse = readInt() != 0;
+                var condition = readExpr();
+                var thenExpression = readExpr();
+                yield hasElse
+                    ? new IfThenElse(position, condition, thenExpression, readExpr())
+                    : new IfThenElse(position, condition, thenExpression);
+            }
+            case LITERAL -> {
+                var type = atomTypes[readInt()];
+                yield new Literal(position, readString(), type);
+            }
+            case UNARY -> {
+                var operator = unaryOperators[readInt()];
+                yield new Unary(position, readExpr(), operator);
+            }
+            case WHILE -> {
+                var condition = readExpr();
+                yield new While(position, condition, readExpr());
+            }
+            case WHERE -> {
+                var expr = readExpr();
+                yield new Where(position, expr, (Defs) readNode());
+            }
+            case DEFS -> new Defs(position, readList(Def.class));
+            case FUN_DEF -> {
+                var name = readString();
+                var parameters = readList(FunDef.Parameter.class);
+                var type = readType();
+                yield new FunDef(position, name, parameters, type, readExpr());
+            }
+            case TYPE_DEF -> {
+                var name = readString();
+                yield new TypeDef(position, name, readType());
+            }
+            case VAR_DEF -> {
+                var name = readString();
+                yield new VarDef(position, name, readType());
+            }
+            case PARAMETER -> {
+                var name = readString();
+                yield new FunDef.Parameter(position, name, readType());
+            }
+            case ARRAY -> {
+                int size = readInt();
+                yield new Array(position, size, readType());
+            }
+            case ATOM -> switch (atomTypes[readInt()]) {
+                case INT -> Atom.INT(position);
+                case LOG -> Atom.LOG(position);
+                case STR -> Atom.STR(position);
+            };
+            case TYPE_NAME -> new TypeName(position, readString());
+            default -> throw new IllegalArgumentException("Unknown AST tag " + tag + "!");
+        };
+    }
+
+    private Expr readExpr() {
+        return (Expr) readNode();
+    }
+
+    private Type readType() {
+        return (Type) readNode();
+    }
+
+    private <T extends Ast> List<T> readList(Class<T> type) {
+        int count = readInt();
+        if (count < 0 || count > end - offset) {
+            throw new IllegalArgumentException("Malformed AST!");
+        }
+        var nodes = new ArrayList<T>(count);
+        for (int i = 0; i < count; i++) {
+            nodes.add(type.cast(readNode()));
+        }
+        return nodes;
+    }
+
+    private Position readPosition() {
+        int startLine = readInt();
+        int startColumn = readInt();
+        int endLine = readInt();
+        return new Position(startLine, startColumn, endLine, readInt());
+    }
+
+    private String readString() {
+        int index = readInt();
+        if (index > 0) {
+            return strings.get(index - 1);
+        }
+        int length = readInt();
+        if (length < 0 || length > end - offset) {
+            throw new IllegalArgumentException("Malformed AST!");
+        }
+        var str = new String(bytes, offset, length, StandardCharsets.UTF_8);
+        offset += length;
+        strings.add(str);
+        return str;
+    }
+
+    private int readInt() {
+        int zigzag = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = readByte();
+            zigzag |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed AST!");
+    }
+
+    private byte readByte() {
+        if (offset >= end) {
+            throw new IllegalArgumentException("Unexpected end of AST!");
+        }
+        return bytes[offset++];
+    }
+}
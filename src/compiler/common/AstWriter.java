@@ -0,0 +1,263 @@
+/**
+ * @ Author: turk
+ * @ Description: Visitor, ki AST zapiše v binarni obliki.
+ */
+
+package compiler.common;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import compiler.lexer.Position;
+import compiler.parser.ast.Ast;
+import compiler.parser.ast.def.*;
+import compiler.parser.ast.expr.*;
+import compiler.parser.ast.type.*;
+
+/**
+ * Zapiše AST v kompaktni binarni obliki, ki jo prebere `AstReader`.
+ *
+ * Vozlišče je zapisano kot oznaka vrste (en bajt), območje (štiri števila)
+ * in polja vozlišča v enakem vrstnem redu kot v konstruktorju.
+ * Cela števila so zapisana kot varint (zigzag), seznami kot dolžina in elementi.
+ * Vsak niz je zapisan le ob prvi pojavitvi, kasneje le njegov indeks.
+ */
+public class AstWriter implements Visitor {
+    static final byte CALL = 1;
+    static final byte BINARY = 2;
+    static final byte BLOCK = 3;
+    static final byte FOR = 4;
+    static final byte NAME = 5;
+    static final byte IF_THEN_ELSE = 6;
+    static final byte LITERAL = 7;
+    static final byte UNARY = 8;
+    static final byte WHILE = 9;
+    static final byte WHERE = 10;
+    static final byte DEFS = 11;
+    static final byte FUN_DEF = 12;
+    static final byte TYPE_DEF = 13;
+    static final byte VAR_DEF = 14;
+    static final byte PARAMETER = 15;
+    static final byte ARRAY = 16;
+    static final byte ATOM = 17;
+    static final byte TYPE_NAME = 18;
+
+    private byte[] bytes = new byte[1 << 12];
+
+    private int size = 0;
+
+    /**
+     * Že zapisani nizi in njihovi indeksi.
+     */
+    private final HashMap<String, Integer> strings = new HashMap<>();
+
+    /**
+     * Zapiše drevo.
+     */
+    public static byte[] write(Ast ast) {
+        requireNonNull(ast);
+        var writer = new AstWriter();
+        ast.accept(writer);
+        return Arrays.copyOf(writer.bytes, writer.size);
+    }
+
+    // --------- izrazi ----------
+
+    @Override
+    public void visit(Call call) {
+        node(CALL, call);
+        writeString(call.name);
+        writeList(call.arguments);
+    }
+
+    @Override
+    public void visit(Binary binary) {
+        node(BINARY, binary);
+        writeInt(binary.operator.ordinal());
+        binary.left.accept(this);
+        binary.right.accept(this);
+    }
+
+    @Override
+    public void visit(Block block) {
+        node(BLOCK, block);
+        writeList(block.expressions);
+    }
+
+    @Override
+    public void visit(For forLoop) {
+        node(FOR, forLoop);
+        forLoop.counter.accept(this);
+        forLoop.low.accept(this);
+        forLoop.high.accept(this);
+        forLoop.step.accept(this);
+        forLoop.body.accept(this);
+    }
+
+    @Override
+    public void visit(Name name) {
+        node(NAME, name);
+        writeString(name.name);
+    }
+
+    @Override
+    public void visit(IfThenElse ifThenElse) {
+        node(IF_THEN_ELSE, ifThenElse);
+        writeInt(ifThenElse.elseExpression.isPresent() ? 1 : 0);
+        ifThenElse.condition.accept(this);
+        ifThenElse.thenExpression.accept(this);
+        ifThenElse.elseExpression.ifPresent(expr -> expr.accept(this));
+    }
+
+    @Override
+    public void visit(Literal literal) {
+        node(LITERAL, literal);
+        writeInt(literal.type.ordinal());
+        writeString(literal.value);
+    }
+
+    @Override
+    public void visit(Unary unary) {
+        node(UNARY, unary);
+        writeInt(unary.operator.ordinal());
+        unary.expr.accept(this);
+    }
+
+    @Override
+    public void visit(While whileLoop) {
+        node(WHILE, whileLoop);
+        whileLoop.condition.accept(this);
+        whileLoop.body.accept(this);
+    }
+
+    @Override
+    public void visit(Where where) {
+        node(WHERE, where);
+        where.expr.accept(this);
+        where.defs.accept(this);
+    }
+
+    // --------- definicije ----------
+
+    @Override
+    public void visit(Defs defs) {
+        node(DEFS, defs);
+        writeList(defs.definitions);
+    }
+
+    @Override
+    public void visit(FunDef funDef) {
+        node(FUN_DEF, funDef);
+        writeString(funDef.name);
+        writeList(funDef.parameters);
+        funDef.type.accept(this);
+        funDef.body.accept(this);
+    }
+
+    @Override
+    public void visit(TypeDef typeDef) {
+        node(TYPE_DEF, typeDef);
+        writeString(typeDef.name);
+        typeDef.type.accept(this);
+    }
+
+    @Override
+    public void visit(VarDef varDef) {
+        node(VAR_DEF, varDef);
+        writeString(varDef.name);
+        varDef.type.accept(this);
+    }
+
+    @Override
+    public void visit(FunDef.Parameter parameter) {
+        node(PARAMETER, parameter);
+        writeString(parameter.name);
+        parameter.type.accept(this);
+    }
+
+    // --------- tipi ----------
+
+    @Override
+    public void visit(Array array) {
+        node(ARRAY, array);
+        writeInt(array.size);
+        array.type.accept(this);
+    }
+
+    @Override
+    public void visit(Atom atom) {
+        node(ATOM, atom);
+        writeInt(atom.type.ordinal());
+    }
+
+    @Override
+    public void visit(TypeName name) {
+        node(TYPE_NAME, name);
+        writeString(name.identifier);
+    }
+
+    // --------- pomožne metode ----------
+
+    private void node(byte tag, Ast node) {
+        writeByte(tag);
+        writePosition(node.position);
+    }
+
+    private void writePosition(Position position) {
+        writeInt(position.start.line);
+        writeInt(position.start.column);
+        writeInt(position.end.line);
+        writeInt(position.end.column);
+    }
+
+    private void writeList(List<? extends Ast> nodes) {
+        writeInt(nodes.size());
+        for (var node : nodes) {
+            node.accept(this);
+        }
+    }
+
+    /**
+     * Nov niz zapišemo kot 0, dolžino in bajte (UTF-8),
+     * že zapisan niz pa kot indeks + 1.
+     */
+    private void writeString(String str) {
+        var index = strings.get(str);
+        if (index != null) {
+            writeInt(index + 1);
+            return;
+        }
+        strings.put(str, strings.size());
+        var encoded = str.getBytes(StandardCharsets.UTF_8);
+        writeInt(0);
+        writeInt(encoded.length);
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, bytes, size, encoded.length);
+        size += encoded.length;
+    }
+
+    private void writeInt(int value) {
+        ensureCapacity(5);
+        int zigzag = (value << 1) ^ (value >> 31);
+        while ((zigzag & ~0x7F) != 0) {
+            bytes[size++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        bytes[size++] = (byte) zigzag;
+    }
+
+    private void writeByte(byte value) {
+        ensureCapacity(1);
+        bytes[size++] = value;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, size + additional));
+        }
+    }
+}
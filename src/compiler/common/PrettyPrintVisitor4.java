@@ -5,13 +5,12 @@
 
 package compiler.common;
 
-import static common.StringUtil.*;
 import static common.RequireNonNull.requireNonNull;
 
-import java.io.PrintStream;
 import java.util.List;
 import java.util.Optional;
 
+import common.DumpWriter;
 import common.VoidOperator;
 import compiler.frm.Access;
 import compiler.frm.Frame;
@@ -38,7 +37,7 @@ public class PrettyPrintVisitor4 implements Visitor {
     /**
      * Izhodni tok, na katerega se izpiše drevo.
      */
-    private PrintStream stream;
+    private final DumpWriter stream;
 
     /**
      * Razrešena imena. 
@@ -66,7 +65,7 @@ public class PrettyPrintVisitor4 implements Visitor {
      * @param increaseIndentBy za koliko naj se poveča indentacija pri gnezdenju.
      * @param stream izhodni tok.
      */
-    public PrettyPrintVisitor4(int increaseIndentBy, PrintStream stream) {
+    public PrettyPrintVisitor4(int increaseIndentBy, DumpWriter stream) {
         requireNonNull(stream);
         this.increaseIndentBy = increaseIndentBy;
         this.stream = stream;
@@ -79,7 +78,7 @@ public class PrettyPrintVisitor4 implements Visitor {
      * 
      * @param stream izhodni tok.
      */
-    public PrettyPrintVisitor4(PrintStream stream) {
+    public PrettyPrintVisitor4(DumpWriter stream) {
         requireNonNull(stream);
         this.increaseIndentBy = 4;
         this.stream = stream;
@@ -293,7 +292,7 @@ public class PrettyPrintVisitor4 implements Visitor {
     }
 
     private void print(String... args) {
-        stream.print(indented("", indent));
+        stream.indent(indent);
         for (var arg : args) {
             stream.print(arg);
         }
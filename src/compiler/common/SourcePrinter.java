@@ -0,0 +1,327 @@
+/**
+ * @ Author: turk
+ * @ Description: Visitor, ki AST izpiše kot izvorno kodo PINS.
+ */
+
+package compiler.common;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.PrintStream;
+import java.util.List;
+
+import compiler.parser.ast.Ast;
+import compiler.parser.ast.def.*;
+import compiler.parser.ast.expr.*;
+import compiler.parser.ast.type.*;
+
+/**
+ * Izpiše AST v obliki, ki jo razčlenjevalnik ponovno sprejme.
+ *
+ * Oklepaje doda le tam, kjer jih zahteva prednost operatorjev
+ * (glej `gramatika.txt`).
+ */
+public class SourcePrinter implements Visitor {
+    /**
+     * Prednosti izrazov - večja številka pomeni močnejšo vezavo.
+     */
+    private static final int LEVEL_WHERE = 0;
+    private static final int LEVEL_OR = 1;
+    private static final int LEVEL_AND = 2;
+    private static final int LEVEL_COMPARE = 3;
+    private static final int LEVEL_ADD = 4;
+    private static final int LEVEL_MUL = 5;
+    private static final int LEVEL_PREFIX = 6;
+    private static final int LEVEL_POSTFIX = 7;
+    private static final int LEVEL_ATOM = 8;
+
+    /**
+     * Izhodni tok.
+     */
+    private final PrintStream stream;
+
+    /**
+     * Trenutna indentacija.
+     */
+    private int indent = 0;
+
+    public SourcePrinter(PrintStream stream) {
+        requireNonNull(stream);
+        this.stream = stream;
+    }
+
+    /**
+     * Izpiše vozlišče.
+     */
+    public void print(Ast ast) {
+        requireNonNull(ast);
+        ast.accept(this);
+    }
+
+    // --------- izrazi ----------
+
+    @Override
+    public void visit(Call call) {
+        stream.print(call.name);
+        stream.print('(');
+        printList(call.arguments);
+        stream.print(')');
+    }
+
+    @Override
+    public void visit(Binary binary) {
+        if (binary.operator == Binary.Operator.ASSIGN) {
+            stream.print("{ ");
+            binary.left.accept(this);
+            stream.print(" = ");
+            binary.right.accept(this);
+            stream.print(" }");
+            return;
+        }
+        if (binary.operator == Binary.Operator.ARR) {
+            printOperand(binary.left, LEVEL_POSTFIX);
+            stream.print('[');
+            binary.right.accept(this);
+            stream.print(']');
+            return;
+        }
+        int precedence = precedence(binary);
+        // Primerjave niso asociativne, ostali operatorji so levo asociativni.
+        printOperand(binary.left, binary.operator.isComparison() ? precedence + 1 : precedence);
+        stream.print(' ');
+        stream.print(symbol(binary.operator));
+        stream.print(' ');
+        printOperand(binary.right, precedence + 1);
+    }
+
+    @Override
+    public void visit(Block block) {
+        stream.print('(');
+        indent++;
+        for (int i = 0; i < block.expressions.size(); i++) {
+            stream.print(i == 0 ? "" : ",");
+            newLine();
+            block.expressions.get(i).accept(this);
+        }
+        indent--;
+        newLine();
+        stream.print(')');
+    }
+
+    @Override
+    public void visit(For forLoop) {
+        stream.print("{ for ");
+        forLoop.counter.accept(this);
+        stream.print(" = ");
+        forLoop.low.accept(this);
+        stream.print(", ");
+        forLoop.high.accept(this);
+        stream.print(", ");
+        forLoop.step.accept(this);
+        stream.print(": ");
+        forLoop.body.accept(this);
+        stream.print(" }");
+    }
+
+    @Override
+    public void visit(Name name) {
+        stream.print(name.name);
+    }
+
+    @Override
+    public void visit(IfThenElse ifThenElse) {
+        stream.print("{ if ");
+        ifThenElse.condition.accept(this);
+        stream.print(" then ");
+        ifThenElse.thenExpression.accept(this);
+        if (ifThenElse.elseExpression.isPresent()) {
+            stream.print(" else ");
+            ifThenElse.elseExpression.get().accept(this);
+        }
+        stream.print(" }");
+    }
+
+    @Override
+    public void visit(Literal literal) {
+        if (literal.type == Atom.Type.STR) {
+            stream.print('\'');
+            stream.print(literal.value.replace("'", "''"));
+            stream.print('\'');
+        } else {
+            stream.print(literal.value);
+        }
+    }
+
+    @Override
+    public void visit(Unary unary) {
+        stream.print(switch (unary.operator) {
+            case ADD -> "+";
+            case SUB -> "-";
+            case NOT -> "!";
+        });
+        printOperand(unary.expr, LEVEL_PREFIX);
+    }
+
+    @Override
+    public void visit(While whileLoop) {
+        stream.print("{ while ");
+        whileLoop.condition.accept(this);
+        stream.print(": ");
+        whileLoop.body.accept(this);
+        stream.print(" }");
+    }
+
+    @Override
+    public void visit(Where where) {
+        printOperand(where.expr, LEVEL_OR);
+        stream.print(" { where");
+        indent++;
+        newLine();
+        where.defs.accept(this);
+        indent--;
+        newLine();
+        stream.print('}');
+    }
+
+    // --------- definicije ----------
+
+    @Override
+    public void visit(Defs defs) {
+        for (int i = 0; i < defs.definitions.size(); i++) {
+            if (i > 0) {
+                stream.print(';');
+                newLine();
+            }
+            defs.definitions.get(i).accept(this);
+        }
+    }
+
+    @Override
+    public void visit(FunDef funDef) {
+        stream.print("fun ");
+        stream.print(funDef.name);
+        stream.print('(');
+        printList(funDef.parameters);
+        stream.print("): ");
+        funDef.type.accept(this);
+        stream.print(" = ");
+        funDef.body.accept(this);
+    }
+
+    @Override
+    public void visit(TypeDef typeDef) {
+        stream.print("typ ");
+        stream.print(typeDef.name);
+        stream.print(": ");
+        typeDef.type.accept(this);
+    }
+
+    @Override
+    public void visit(VarDef varDef) {
+        stream.print("var ");
+        stream.print(varDef.name);
+        stream.print(": ");
+        varDef.type.accept(this);
+    }
+
+    @Override
+    public void visit(FunDef.Parameter parameter) {
+        stream.print(parameter.name);
+        stream.print(": ");
+        parameter.type.accept(this);
+    }
+
+    // --------- tipi ----------
+
+    @Override
+    public void visit(Array array) {
+        stream.print("arr[");
+        stream.print(array.size);
+        stream.print("] ");
+        array.type.accept(this);
+    }
+
+    @Override
+    public void visit(Atom atom) {
+        stream.print(switch (atom.type) {
+            case INT -> "integer";
+            case LOG -> "logical";
+            case STR -> "string";
+        });
+    }
+
+    @Override
+    public void visit(TypeName name) {
+        stream.print(name.identifier);
+    }
+
+    // --------- pomožne metode ----------
+
+    private void printList(List<? extends Ast> nodes) {
+        for (int i = 0; i < nodes.size(); i++) {
+            if (i > 0) {
+                stream.print(", ");
+            }
+            nodes.get(i).accept(this);
+        }
+    }
+
+    /**
+     * Izpiše podizraz; če veže šibkeje od `required`, ga obda z oklepaji.
+     */
+    private void printOperand(Expr expr, int required) {
+        if (precedence(expr) < required) {
+            stream.print('(');
+            expr.accept(this);
+            stream.print(')');
+        } else {
+            expr.accept(this);
+        }
+    }
+
+    private void newLine() {
+        stream.println();
+        for (int i = 0; i < indent; i++) {
+            stream.print("    ");
+        }
+    }
+
+    private static int precedence(Expr expr) {
+        if (expr instanceof Where) {
+            return LEVEL_WHERE;
+        } else if (expr instanceof Unary) {
+            return LEVEL_PREFIX;
+        } else if (expr instanceof Binary binary) {
+            return switch (binary.operator) {
+                case OR -> LEVEL_OR;
+                case AND -> LEVEL_AND;
+                case EQ, NEQ, LT, GT, LEQ, GEQ -> LEVEL_COMPARE;
+                case ADD, SUB -> LEVEL_ADD;
+                case MUL, DIV, MOD -> LEVEL_MUL;
+                case ARR -> LEVEL_POSTFIX;
+                case ASSIGN -> LEVEL_ATOM;
+            };
+        }
+        return LEVEL_ATOM;
+    }
+
+    private static String symbol(Binary.Operator operator) {
+        return switch (operator) {
+            case ADD -> "+";
+            case SUB -> "-";
+            case MUL -> "*";
+            case DIV -> "/";
+            case MOD -> "%";
+            case AND -> "&";
+            case OR -> "|";
+            case EQ -> "==";
+            case NEQ -> "!=";
+            case LT -> "<";
+            case GT -> ">";
+            case LEQ -> "<=";
+            case GEQ -> ">=";
+            case ASSIGN -> "=";
+            case ARR -> "[]";
+        };
+    }
+}
@@ -7,6 +7,8 @@ package compiler.frm;
 
 import static common.RequireNonNull.requireNonNull;
 
+import java.util.Optional;
+
 import compiler.frm.Frame.Label;
 
 public abstract class Access {
@@ -68,6 +70,33 @@ public abstract class Access {
         }
     }
 
+    /**
+     * Opis dostopa do lokalne spremenljivke ali parametra, ki ga hranimo
+     * v začasni spremenljivki (do njega ne dostopamo preko statičnega linka).
+     */
+    public static class Register extends Access {
+        public final Frame.Temp temp;
+
+        /**
+         * Mesto parametra na skladu, kamor klicatelj zapiše argument.
+         * Prazno za lokalne spremenljivke.
+         */
+        public final Optional<Parameter> parameter;
+
+        public Register(int size, Frame.Temp temp, Optional<Parameter> parameter) {
+            super(size);
+            requireNonNull(temp, parameter);
+            this.temp = temp;
+            this.parameter = parameter;
+        }
+
+        @Override
+        public String toString() {
+            return "Register: size["+size+"],temp["+temp+"]"
+                + parameter.map(p -> ",offset["+p.offset+"]").orElse("");
+        }
+    }
+
     /**
      * Globalni dostop (preko labele).
      */
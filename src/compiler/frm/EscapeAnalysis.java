@@ -0,0 +1,212 @@
+/**
+ * @ Author: turk
+ * @ Description: Analiza spremenljivk, ki jih lahko hranimo v začasnih spremenljivkah.
+ */
+
+package compiler.frm;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import compiler.common.Visitor;
+import compiler.parser.ast.Ast;
+import compiler.parser.ast.def.*;
+import compiler.parser.ast.def.FunDef.Parameter;
+import compiler.parser.ast.expr.*;
+import compiler.parser.ast.type.Array;
+import compiler.parser.ast.type.Atom;
+import compiler.parser.ast.type.TypeName;
+import compiler.seman.common.NodeDescription;
+import compiler.seman.type.type.Type;
+
+/**
+ * Poišče lokalne spremenljivke in parametre, ki niso tabele in do katerih
+ * ne dostopamo preko statičnega linka (iz gnezdene funkcije).
+ * Takšne spremenljivke ne potrebujejo prostora v klicnem zapisu.
+ */
+public class EscapeAnalysis implements Visitor {
+    /**
+     * Opis vozlišč in njihovih definicij.
+     */
+    private final NodeDescription<Def> definitions;
+
+    /**
+     * Opis vozlišč in njihovih podatkovnih tipov.
+     */
+    private final NodeDescription<Type> types;
+
+    /**
+     * Statični nivo kandidatov (lokalnih spremenljivk in parametrov).
+     */
+    private final Map<Def, Integer> levels = new HashMap<>();
+
+    /**
+     * Definicije, do katerih dostopamo iz gnezdenih funkcij.
+     */
+    private final Set<Def> escaping = new HashSet<>();
+
+    /**
+     * Uporabe imen v gnezdenih funkcijah in statični nivo, na katerem se pojavijo.
+     */
+    private final List<Name> uses = new ArrayList<>();
+
+    private final List<Integer> useLevels = new ArrayList<>();
+
+    private int staticLevel = 0;
+
+    private EscapeAnalysis(NodeDescription<Def> definitions, NodeDescription<Type> types) {
+        this.definitions = definitions;
+        this.types = types;
+    }
+
+    /**
+     * Vrne definicije lokalnih spremenljivk in parametrov, ki jih lahko
+     * hranimo v začasnih spremenljivkah.
+     */
+    public static Set<Def> registers(Ast ast, NodeDescription<Def> definitions, NodeDescription<Type> types) {
+        requireNonNull(ast, definitions, types);
+        var analysis = new EscapeAnalysis(definitions, types);
+        ast.accept(analysis);
+        for (int i = 0; i < analysis.uses.size(); i++) {
+            analysis.use(analysis.uses.get(i), analysis.useLevels.get(i));
+        }
+        var registers = new HashSet<>(analysis.levels.keySet());
+        registers.removeAll(analysis.escaping);
+        return registers;
+    }
+
+    private void use(Name name, int level) {
+        var def = definitions.valueFor(name);
+        if (def.isEmpty()) {
+            return;
+        }
+        var defLevel = levels.get(def.get());
+        if (defLevel != null && defLevel != level) {
+            escaping.add(def.get());
+        }
+    }
+
+    private void candidate(Def def, Ast type) {
+        var t = types.valueFor(type);
+        if (staticLevel > 0 && t.isPresent() && !t.get().isArray()) {
+            levels.put(def, staticLevel);
+        }
+    }
+
+    @Override
+    public void visit(Call call) {
+        for (Expr argument : call.arguments) {
+            argument.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(Binary binary) {
+        binary.left.accept(this);
+        binary.right.accept(this);
+    }
+
+    @Override
+    public void visit(Block block) {
+        for (Expr expr : block.expressions) {
+            expr.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(For forLoop) {
+        forLoop.counter.accept(this);
+        forLoop.low.accept(this);
+        forLoop.high.accept(this);
+        forLoop.step.accept(this);
+        forLoop.body.accept(this);
+    }
+
+    @Override
+    public void visit(Name name) {
+        // Lokalne spremenljivke so definirane na nivoju >= 1, zato lahko do njih
+        // preko statičnega linka dostopamo le iz nivoja >= 2. Definicija je lahko
+        // za uporabo (`where`), zato uporabe preverimo na koncu.
+        if (staticLevel > 1) {
+            uses.add(name);
+            useLevels.add(staticLevel);
+        }
+    }
+
+    @Override
+    public void visit(IfThenElse ifThenElse) {
+        ifThenElse.condition.accept(this);
+        ifThenElse.thenExpression.accept(this);
+        ifThenElse.elseExpression.ifPresent(expr -> expr.accept(this));
+    }
+
+    @Override
+    public void visit(Literal literal) {
+    }
+
+    @Override
+    public void visit(Unary unary) {
+        unary.expr.accept(this);
+    }
+
+    @Override
+    public void visit(While whileLoop) {
+        whileLoop.condition.accept(this);
+        whileLoop.body.accept(this);
+    }
+
+    @Override
+    public void visit(Where where) {
+        where.expr.accept(this);
+        where.defs.accept(this);
+    }
+
+    @Override
+    public void visit(Defs defs) {
+        for (Def def : defs.definitions) {
+            def.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(FunDef funDef) {
+        staticLevel++;
+        for (Parameter parameter : funDef.parameters) {
+            parameter.accept(this);
+        }
+        funDef.body.accept(this);
+        staticLevel--;
+    }
+
+    @Override
+    public void visit(TypeDef typeDef) {
+    }
+
+    @Override
+    public void visit(VarDef varDef) {
+        candidate(varDef, varDef.type);
+    }
+
+    @Override
+    public void visit(Parameter parameter) {
+        candidate(parameter, parameter.type);
+    }
+
+    @Override
+    public void visit(Array array) {
+    }
+
+    @Override
+    public void visit(Atom atom) {
+    }
+
+    @Override
+    public void visit(TypeName name) {
+    }
+}
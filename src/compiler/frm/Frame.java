@@ -71,6 +71,16 @@ public class Frame {
                 "size=" + size();
     }
 
+    /**
+     * Ponastavi števca začasnih spremenljivk in anonimnih label.
+     * Uporabimo pred prevajanjem novega programa v istem procesu, da so
+     * imena enaka kot pri prevajanju v novem procesu.
+     */
+    public static void resetCounters() {
+        Temp.count = 0;
+        Label.count = 0;
+    }
+
     /**
      * Začasna spremenljivka.
      */
@@ -93,6 +103,15 @@ public class Frame {
             return new Temp(count++);
         }
 
+        /**
+         * Vrne začasno spremenljivko s podanim id-jem (npr. pri branju
+         * shranjene kode). Nove spremenljivke bodo imele večji id.
+         */
+        public static Temp withId(int id) {
+            count = Math.max(count, id + 1);
+            return new Temp(id);
+        }
+
         @Override
         public String toString() {
             return "T[" + id + "]";
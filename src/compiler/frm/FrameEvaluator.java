@@ -21,6 +21,8 @@ import compiler.seman.type.type.Type;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.Stack;
 
 public class FrameEvaluator implements Visitor {
@@ -44,6 +46,12 @@ public class FrameEvaluator implements Visitor {
      */
     private final NodeDescription<Type> types;
 
+    /**
+     * Lokalne spremenljivke in parametri, ki jih hranimo v začasnih spremenljivkah
+     * (glej `EscapeAnalysis`).
+     */
+    private final Set<Def> registers;
+
     private int staticLevel = 0;
     private final Stack <Frame.Builder> builderStack = new Stack<>();
 
@@ -54,11 +62,22 @@ public class FrameEvaluator implements Visitor {
             NodeDescription<Def> definitions,
             NodeDescription<Type> types
     ) {
-        requireNonNull(frames, accesses, definitions, types);
+        this(frames, accesses, definitions, types, Set.of());
+    }
+
+    public FrameEvaluator(
+            NodeDescription<Frame> frames,
+            NodeDescription<Access> accesses,
+            NodeDescription<Def> definitions,
+            NodeDescription<Type> types,
+            Set<Def> registers
+    ) {
+        requireNonNull(frames, accesses, definitions, types, registers);
         this.frames = frames;
         this.accesses = accesses;
         this.definitions = definitions;
         this.types = types;
+        this.registers = registers;
     }
 
     @Override
@@ -197,7 +216,9 @@ public class FrameEvaluator implements Visitor {
         Access acc;
         if (types.valueFor(varDef.type).isPresent()) {
             Type t = types.valueFor(varDef.type).get();
-            if (this.staticLevel > 0) {
+            if (registers.contains(varDef)) {
+                acc = new Access.Register(t.sizeInBytes(), Frame.Temp.next(), Optional.empty());
+            } else if (this.staticLevel > 0) {
                 var builder = builderStack.pop();
                 acc = new Access.Local(t.sizeInBytes(), builder.addLocalVariable(t.sizeInBytes()), this.staticLevel);
                 builderStack.push(builder);
@@ -217,7 +238,11 @@ public class FrameEvaluator implements Visitor {
             Type t = types.valueFor(parameter.type).get();
             var builder = builderStack.pop();
             Access.Parameter p = new Access.Parameter(t.sizeInBytesAsParam(), builder.addParameter(t.sizeInBytesAsParam()), this.staticLevel);
-            accesses.store(p, parameter);
+            if (registers.contains(parameter)) {
+                accesses.store(new Access.Register(p.size, Frame.Temp.next(), Optional.of(p)), parameter);
+            } else {
+                accesses.store(p, parameter);
+            }
             builderStack.push(builder);
         }
     }
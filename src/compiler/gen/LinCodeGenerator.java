@@ -6,12 +6,12 @@
 package compiler.gen;
 
 import static common.RequireNonNull.requireNonNull;
-import static java.util.List.of;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import common.Constants;
 import common.Report;
@@ -19,6 +19,10 @@ import compiler.frm.Frame;
 import compiler.ir.chunk.Chunk;
 import compiler.ir.code.expr.*;
 import compiler.ir.code.stmt.*;
+import compiler.ir.opt.CommonSubexpressionElimination;
+import compiler.ir.opt.CopyPropagation;
+import compiler.ir.opt.DeadCodeElimination;
+import compiler.ir.opt.TraceScheduling;
 
 public class LinCodeGenerator {
     /**
@@ -33,9 +37,31 @@ public class LinCodeGenerator {
      */
     private int offset = Constants.WordSize; 
 
+    /**
+     * **Rezultat linearizacije** - linearizirani fragmenti kode.
+     */
+    public final List<Chunk.CodeChunk> codeChunks = new ArrayList<>();
+
+    /**
+     * Stopnja optimizacije linearizirane kode.
+     */
+    private final int optimizationLevel;
+
+    /**
+     * Nova imena začasnih spremenljivk iz vmesne kode trenutnega fragmenta
+     * (npr. lokalnih spremenljivk, ki jih hranimo v začasnih spremenljivkah).
+     * Tako so vse začasne spremenljivke fragmenta zaporedne.
+     */
+    private final Map<Frame.Temp, TempExpr> renamed = new HashMap<>();
+
     public LinCodeGenerator(Memory memory) {
+        this(memory, 0);
+    }
+
+    public LinCodeGenerator(Memory memory, int optimizationLevel) {
         requireNonNull(memory);
         this.memory = memory;
+        this.optimizationLevel = optimizationLevel;
     }
 
     /**
@@ -48,6 +74,7 @@ public class LinCodeGenerator {
         for (var chunk : chunks) {
             if (chunk instanceof Chunk.CodeChunk code) {
                 var linearChunk = linearizeChunk(code);
+                codeChunks.add(linearChunk);
                 memory.registerLabel(code.frame.label, offset);
                 offset += Constants.WordSize;
                 memory.stM(code.frame.label, linearChunk);
@@ -71,161 +98,105 @@ public class LinCodeGenerator {
         return mainCodeChunk;
     }
     
+    /**
+     * Linearizacija v enem prehodu: stavke dodajamo v izhodni seznam fragmenta,
+     * metode za izraze pa vrnejo le preostanek izraza brez stavkov.
+     */
     private Chunk.CodeChunk linearizeChunk(Chunk.CodeChunk chunk) {
-        var linCode = linearize(chunk.code);
-        return new Chunk.CodeChunk(chunk.frame, linCode);
+        var statements = new ArrayList<IRStmt>();
+        renamed.clear();
+        linearize(chunk.code, statements);
+        return optimize(new Chunk.CodeChunk(chunk.frame, new SeqStmt(statements)));
+    }
+
+    /**
+     * Optimizacije nad lineariziranim fragmentom kode.
+     */
+    private Chunk.CodeChunk optimize(Chunk.CodeChunk chunk) {
+        if (optimizationLevel >= 1) {
+            chunk = new CopyPropagation().optimize(chunk);
+            chunk = new DeadCodeElimination().optimize(chunk);
+            chunk = new TraceScheduling().optimize(chunk);
+            chunk = new DeadCodeElimination().optimize(chunk);
+        }
+        if (optimizationLevel >= 2) {
+            chunk = new CommonSubexpressionElimination().optimize(chunk);
+        }
+        return chunk;
     }
 
-    private EseqExpr linearize(IRExpr expr) {
+    private IRExpr linearize(IRExpr expr, List<IRStmt> out) {
         if (expr instanceof BinopExpr binopExpr) {
-            return linearize(binopExpr);
+            return linearize(binopExpr, out);
         } else if (expr instanceof CallExpr callExpr) {
-            return linearize(callExpr);
+            return linearize(callExpr, out);
         } else if (expr instanceof ConstantExpr constantExpr) {
-            return linearize(constantExpr);
+            return constantExpr;
         } else if (expr instanceof EseqExpr eseqExpr) {
-            return linearize(eseqExpr);
+            return linearize(eseqExpr, out);
         } else if (expr instanceof MemExpr memExpr) {
-            return linearize(memExpr);
+            return new MemExpr(linearize(memExpr.expr, out));
         } else if (expr instanceof NameExpr nameExpr) {
-            return linearize(nameExpr);
+            return nameExpr;
         } else if (expr instanceof TempExpr tempExpr) {
-            return linearize(tempExpr);
+            return renamed.computeIfAbsent(tempExpr.temp, temp -> new TempExpr(Frame.Temp.next()));
         } else {
             throw new IllegalArgumentException("Unknown expr type");
         }
     }
 
-    private SeqStmt linearize(IRStmt stmt) {
+    private void linearize(IRStmt stmt, List<IRStmt> out) {
         if (stmt instanceof CJumpStmt cJumpStmt) {
-            return linearize(cJumpStmt);
+            linearize(cJumpStmt, out);
         } else if (stmt instanceof ExpStmt expStmt) {
-            return linearize(expStmt);
+            out.add(new ExpStmt(linearize(expStmt.expr, out)));
         } else if (stmt instanceof JumpStmt jumpStmt) {
-            return linearize(jumpStmt);
+            out.add(jumpStmt);
         } else if (stmt instanceof LabelStmt labelStmt) {
-            return linearize(labelStmt);
+            out.add(labelStmt);
         } else if (stmt instanceof MoveStmt moveStmt) {
-            return linearize(moveStmt);
+            linearize(moveStmt, out);
         } else if (stmt instanceof SeqStmt seqStmt) {
-            return linearize(seqStmt);
+            for (var s : seqStmt.statements) {
+                linearize(s, out);
+            }
         } else {
             throw new IllegalArgumentException("Unknown expr type");
         }
     }
 
-    private EseqExpr linearize(BinopExpr binop) {
-        var lhs = linearize(binop.lhs);
-        var rhs = linearize(binop.rhs);
-        return new EseqExpr(
-            new SeqStmt(flatten(of(
-                lhs.stmt.statements(),
-                rhs.stmt.statements()
-            ))), 
-            new BinopExpr(lhs.expr, rhs.expr, binop.op));
+    private IRExpr linearize(BinopExpr binop, List<IRStmt> out) {
+        var lhs = linearize(binop.lhs, out);
+        var rhs = linearize(binop.rhs, out);
+        return new BinopExpr(lhs, rhs, binop.op);
     }
 
-    private EseqExpr linearize(CallExpr call) {
-        var allStatements = new SeqStmt(new ArrayList<>());
+    private IRExpr linearize(CallExpr call, List<IRStmt> out) {
         var args = new ArrayList<IRExpr>(call.args.size());
         for (var arg : call.args) {
-            var eseq = linearize(arg);
-            allStatements.statements.addAll(eseq.stmt.statements());
+            var expr = linearize(arg, out);
             var temp = new TempExpr(Frame.Temp.next());
-            var move = new MoveStmt(
-                temp,
-                eseq.expr);
-            allStatements.statements.add(move);
+            out.add(new MoveStmt(temp, expr));
             args.add(temp);
         }
         var resultTemp = new TempExpr(Frame.Temp.next());
-        allStatements.statements.add(new MoveStmt(
-            resultTemp, 
-            new CallExpr(call.label, args)));
-        var eseq = new EseqExpr(
-            allStatements, 
-            resultTemp);
-        return eseq;
-    }
-
-    private EseqExpr linearize(ConstantExpr constant) {
-        return new EseqExpr(SeqStmt.empty(), constant);
-    }
-
-    private EseqExpr linearize(EseqExpr eseq) {
-        var linStmt = linearize(eseq.stmt).statements;
-        var linExpr = linearize(eseq.expr);
-        return new EseqExpr(
-            new SeqStmt(flatten(of(
-                linStmt,
-                linExpr.stmt.statements()
-            ))), 
-            linExpr.expr);
+        out.add(new MoveStmt(resultTemp, new CallExpr(call.label, args)));
+        return resultTemp;
     }
 
-    private EseqExpr linearize(MemExpr mem) {
-        var linExpr = linearize(mem.expr);
-        return new EseqExpr(
-            new SeqStmt(linExpr.stmt.statements()), 
-            new MemExpr(linExpr.expr));
+    private IRExpr linearize(EseqExpr eseq, List<IRStmt> out) {
+        linearize(eseq.stmt, out);
+        return linearize(eseq.expr, out);
     }
 
-    private EseqExpr linearize(NameExpr name) {
-        return new EseqExpr(SeqStmt.empty(), name);
+    private void linearize(CJumpStmt cjump, List<IRStmt> out) {
+        var cond = linearize(cjump.condition, out);
+        out.add(new CJumpStmt(cond, cjump.thenLabel, cjump.elseLabel));
     }
 
-    private EseqExpr linearize(TempExpr temp) {
-        return new EseqExpr(SeqStmt.empty(), temp);
+    private void linearize(MoveStmt move, List<IRStmt> out) {
+        var dst = linearize(move.dst, out);
+        var src = linearize(move.src, out);
+        out.add(new MoveStmt(dst, src));
     }
-
-    private SeqStmt linearize(CJumpStmt cjump) {
-        var linCond = linearize(cjump.condition);
-        return new SeqStmt(
-            flatten(of(
-                linCond.stmt.statements(),
-                new CJumpStmt(linCond.expr, cjump.thenLabel, cjump.elseLabel).statements()
-            )));
-    }
-
-    private SeqStmt linearize(ExpStmt exp) {
-        var linExpr = linearize(exp.expr);
-        return new SeqStmt(flatten(of(
-            linExpr.stmt.statements(),
-            new ExpStmt(linExpr.expr).statements()
-        )));
-    }
-
-    private SeqStmt linearize(JumpStmt jump) {
-        return new SeqStmt(of(jump));
-    }
-
-    private SeqStmt linearize(LabelStmt label) {
-        return new SeqStmt(of(label));
-    }
-
-    private SeqStmt linearize(MoveStmt move) {
-        var linDst = linearize(move.dst);
-        var linSrc = linearize(move.src);
-        return new SeqStmt(flatten(of(
-            linDst.stmt.statements(),
-            linSrc.stmt.statements(),
-            new MoveStmt(linDst.expr, linSrc.expr).statements()
-        )));
-    }
-
-    private SeqStmt linearize(SeqStmt seq) {
-        var linStmts = seq.statements.stream()
-            .map(stmt -> linearize(stmt).statements())
-            .collect(Collectors.toList());
-        return new SeqStmt(flatten(linStmts));
-    }
-
-    private <T> List<T> flatten(List<List<T>> lists) {
-        var size = lists.stream().mapToInt(list -> list.size()).sum();
-        List<T> res = new ArrayList<>(size);
-        for (var list : lists) {
-            res.addAll(list);
-        }
-        return res;
-    } 
 }
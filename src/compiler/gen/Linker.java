@@ -0,0 +1,122 @@
+/**
+ * @ Author: turk
+ * @ Description: Povezovanje lineariziranih fragmentov kode.
+ */
+
+package compiler.gen;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import compiler.frm.Frame;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+/**
+ * Razreši labele v lineariziranih fragmentih kode, preden jih izvedemo:
+ * - imena globalnih spremenljivk in podatkov nadomesti z njihovimi naslovi,
+ * - klice funkcij nadomesti s klici, ki vsebujejo indeks klicanega fragmenta.
+ *
+ * Navidezni stroj med izvajanjem povezanega programa tako ne išče label v pomnilniku.
+ * Klici funkcij 'standardne knjižnice' ostanejo nespremenjeni.
+ */
+public class Linker {
+    private final Memory memory;
+
+    /**
+     * Indeksi fragmentov kode po labelah funkcij.
+     */
+    private final Map<Frame.Label, Integer> functions = new HashMap<>();
+
+    /**
+     * Povezani fragmenti kode po izvornih fragmentih.
+     */
+    private final Map<CodeChunk, CodeChunk> linked = new IdentityHashMap<>();
+
+    /**
+     * **Rezultat povezovanja** - povezani fragmenti kode (v enakem vrstnem redu kot izvorni).
+     */
+    public final List<CodeChunk> codeChunks = new ArrayList<>();
+
+    public Linker(Memory memory) {
+        requireNonNull(memory);
+        this.memory = memory;
+    }
+
+    /**
+     * Poveže fragmente kode.
+     */
+    public List<CodeChunk> link(List<CodeChunk> chunks) {
+        requireNonNull(chunks);
+        for (int i = 0; i < chunks.size(); i++) {
+            functions.put(chunks.get(i).frame.label, i);
+        }
+        for (var chunk : chunks) {
+            var statements = new ArrayList<IRStmt>();
+            for (var stmt : chunk.code.statements()) {
+                statements.add(link(stmt));
+            }
+            var linkedChunk = new CodeChunk(chunk.frame, new SeqStmt(statements));
+            linked.put(chunk, linkedChunk);
+            codeChunks.add(linkedChunk);
+        }
+        return codeChunks;
+    }
+
+    /**
+     * Povezan fragment, ki pripada izvornemu fragmentu `chunk`.
+     */
+    public CodeChunk linked(CodeChunk chunk) {
+        requireNonNull(chunk);
+        var linkedChunk = linked.get(chunk);
+        if (linkedChunk == null) {
+            throw new IllegalArgumentException("Chunk " + chunk.frame.label + " is not linked!");
+        }
+        return linkedChunk;
+    }
+
+    private IRStmt link(IRStmt stmt) {
+        if (stmt instanceof MoveStmt move) {
+            return new MoveStmt(link(move.dst), link(move.src));
+        } else if (stmt instanceof ExpStmt exp) {
+            return new ExpStmt(link(exp.expr));
+        } else if (stmt instanceof CJumpStmt cjump) {
+            return new CJumpStmt(link(cjump.condition), cjump.thenLabel, cjump.elseLabel);
+        } else if (stmt instanceof JumpStmt || stmt instanceof LabelStmt) {
+            return stmt;
+        } else {
+            throw new IllegalArgumentException("Cannot link this statement; linearize IRCode!");
+        }
+    }
+
+    private IRExpr link(IRExpr expr) {
+        if (expr instanceof BinopExpr binop) {
+            return new BinopExpr(link(binop.lhs), link(binop.rhs), binop.op);
+        } else if (expr instanceof CallExpr call) {
+            var args = new ArrayList<IRExpr>(call.args.size());
+            for (var arg : call.args) {
+                args.add(link(arg));
+            }
+            var function = functions.get(call.label);
+            if (function == null) {
+                // standardna knjižnica
+                return new CallExpr(call.label, args);
+            }
+            return new LinkedCallExpr(call.label, args, function);
+        } else if (expr instanceof MemExpr mem) {
+            return new MemExpr(link(mem.expr));
+        } else if (expr instanceof NameExpr name && !name.isRegister()) {
+            return new ConstantExpr(memory.address(name.label));
+        } else if (expr instanceof ConstantExpr || expr instanceof NameExpr || expr instanceof TempExpr) {
+            return expr;
+        } else {
+            throw new IllegalArgumentException("Cannot link this expression; linearize IRCode!");
+        }
+    }
+}
@@ -8,6 +8,7 @@ package compiler.gen;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import common.Constants;
 import compiler.frm.Frame;
@@ -19,9 +20,17 @@ public class Memory {
     public final int size;
 
     /**
-     * Emulator pomnilnika - preslikava iz naslovov v vrednosti poljubnih tipov.
+     * Cela števila, shranjena v pomnilniku (po besedah).
      */
-    private Map<Integer, Object> memory = new HashMap<>();
+    private final int[] words;
+
+    /**
+     * Vsebina besed: `WORD`, če je v besedi celo število (v `words`),
+     * sicer vrednost drugega tipa (niz, fragment kode) ali `null` za prazno besedo.
+     */
+    private final Object[] values;
+
+    private static final Object WORD = new Object();
 
     /**
      * Začasne spremenljivke ('registri').
@@ -35,6 +44,8 @@ public class Memory {
 
     public Memory(int size) {
         this.size = size;
+        this.words = new int[size / Constants.WordSize + 1];
+        this.values = new Object[words.length];
     }
 
     /**
@@ -42,7 +53,16 @@ public class Memory {
      */
     public void stM(int address, Object value) {
         validateAddress(address);
-        memory.put(address, value);
+        store(address / Constants.WordSize, value);
+    }
+
+    /**
+     * Na podan naslov shrani celo število.
+     */
+    public void stW(int address, int value) {
+        validateAddress(address);
+        words[address / Constants.WordSize] = value;
+        values[address / Constants.WordSize] = WORD;
     }
 
     /**
@@ -50,7 +70,7 @@ public class Memory {
      */
     public void stM(Frame.Label label, Object value) {
         if (labelToAddressMapping.containsKey(label)) {
-            memory.put(address(label), value);
+            store(address(label) / Constants.WordSize, value);
         } else {
             throw new IllegalArgumentException("Unknown label!");
         }
@@ -68,19 +88,49 @@ public class Memory {
      */
     public Object ldM(int address) {
         validateAddress(address);
-        if (memory.containsKey(address)) {
-            return memory.get(address);
+        var value = values[address / Constants.WordSize];
+        if (value == WORD) {
+            return words[address / Constants.WordSize];
+        } else if (value != null) {
+            return value;
+        }
+        throw new IllegalArgumentException("Empty address " + address + "!");
+    }
+
+    /**
+     * Preberi celo število iz podanega naslova.
+     */
+    public int ldW(int address) {
+        validateAddress(address);
+        var value = values[address / Constants.WordSize];
+        if (value == WORD) {
+            return words[address / Constants.WordSize];
+        } else if (value != null) {
+            throw new IllegalArgumentException("Address " + address + " does not contain an integer!");
         }
         throw new IllegalArgumentException("Empty address " + address + "!");
     }
 
+    /**
+     * Preberi celo število iz podanega naslova.
+     *
+     * Če naslov ni veljaven ali na njem ni celega števila, vrne kar naslov
+     * (enako kot `WordMemory.loadOrAddress`).
+     */
+    public int ldWOrAddress(int address) {
+        if (address > 0 && address <= size && address % Constants.WordSize == 0 && values[address / Constants.WordSize] == WORD) {
+            return words[address / Constants.WordSize];
+        }
+        return address;
+    }
+
     /**
      * Preberi vrednost iz podane poimenovane lokacije.
      */
     public Object ldM(Frame.Label label) {
         if (labelToAddressMapping.containsKey(label)) {
-            var address = labelToAddressMapping.get(label);
-            return memory.get(address);
+            var index = labelToAddressMapping.get(label) / Constants.WordSize;
+            return values[index] == WORD ? words[index] : values[index];
         }
         throw new IllegalArgumentException("Empty address for label " + label.toString() + "!");
     }
@@ -123,17 +173,26 @@ public class Memory {
         if (!tempsStr.isEmpty()) {
             sb.append("\n");
         }
-        var memStr = memory.entrySet().stream()
-            .sorted((o1, o2) -> o2.getKey() - o1.getKey())
-            .map(entry -> entry.getKey().toString() + ": " + entry.getValue().toString())
+        var memStr = IntStream.iterate(values.length - 1, i -> i >= 0, i -> i - 1)
+            .filter(i -> values[i] != null)
+            .mapToObj(i -> (i * Constants.WordSize) + ": " + (values[i] == WORD ? words[i] : values[i]).toString())
             .collect(Collectors.joining("\n"));
         sb.append(memStr);
         return sb.toString();
     }
 
+    private void store(int index, Object value) {
+        if (value instanceof Integer integer) {
+            words[index] = integer;
+            values[index] = WORD;
+        } else {
+            values[index] = value;
+        }
+    }
+
     private void validateAddress(int address) {
         // if debugMode
-        if (address > size) {
+        if (address > size || address < 0) {
             throw new IllegalArgumentException("Address " + address + " out of bounds!");
         }
         if (address == 0) {
@@ -0,0 +1,460 @@
+/**
+ * @ Author: turk
+ * @ Description: Slika prevedenega programa.
+ */
+
+package compiler.gen;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import compiler.frm.Access;
+import compiler.frm.Frame;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.code.IRNode;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+/**
+ * Vse, kar potrebujemo za izvajanje programa po linearizaciji:
+ * linearizirani fragmenti kode, nizi, globalne spremenljivke in
+ * njihovi naslovi v pomnilniku navideznega stroja.
+ *
+ * Sliko zapišemo z `write` in jo kasneje preberemo z `read`, nato pa z `load`
+ * pripravimo pomnilnik, ne da bi ponovno izvedli katerokoli fazo prevajanja.
+ *
+ * Zapis: glava (`magic`, `version`, dolžina in CRC32 vsebine), nato velikost
+ * pomnilnika, stopnja optimizacije in fragmenti v vrstnem redu, v katerem jih
+ * je razporedil `LinCodeGenerator`, vsak s svojim naslovom.
+ */
+public class ProgramImage {
+    private static final int magic = 0x50494d47; // "PIMG"
+
+    /**
+     * Različica zapisa; povečamo jo ob vsaki spremembi vmesne kode ali zapisa.
+     */
+    private static final int version = 2;
+
+    private static final int headerSize = 4 + 4 + 4 + 4;
+
+    private static final byte CODE = 1;
+    private static final byte DATA = 2;
+    private static final byte GLOBAL = 3;
+
+    private static final byte BINOP = 1;
+    private static final byte CALL = 2;
+    private static final byte CONSTANT = 3;
+    private static final byte ESEQ = 4;
+    private static final byte MEM = 5;
+    private static final byte NAME = 6;
+    private static final byte TEMP = 7;
+    private static final byte CJUMP = 8;
+    private static final byte EXP = 9;
+    private static final byte JUMP = 10;
+    private static final byte LABEL = 11;
+    private static final byte MOVE = 12;
+    private static final byte SEQ = 13;
+
+    private static final BinopExpr.Operator[] operators = BinopExpr.Operator.values();
+
+    /**
+     * Velikost pomnilnika navideznega stroja.
+     */
+    public final int memorySize;
+
+    /**
+     * Stopnja optimizacije, s katero je bil program preveden.
+     */
+    public final int optimizationLevel;
+
+    /**
+     * Fragmenti (koda je linearizirana) v vrstnem redu razporeditve.
+     */
+    private final List<Chunk> chunks;
+
+    /**
+     * Naslovi fragmentov.
+     */
+    private final List<Integer> addresses;
+
+    private ProgramImage(int memorySize, int optimizationLevel, List<Chunk> chunks, List<Integer> addresses) {
+        this.memorySize = memorySize;
+        this.optimizationLevel = optimizationLevel;
+        this.chunks = chunks;
+        this.addresses = addresses;
+    }
+
+    /**
+     * Ustvari sliko iz rezultata `LinCodeGenerator.generateCode`.
+     *
+     * @param memory pomnilnik, v katerega je `LinCodeGenerator` razporedil fragmente.
+     * @param chunks fragmenti vmesne kode, kot smo jih podali `LinCodeGenerator`.
+     */
+    public static ProgramImage of(Memory memory, int optimizationLevel, List<Chunk> chunks) {
+        requireNonNull(memory, chunks);
+        var imageChunks = new ArrayList<Chunk>(chunks.size());
+        var addresses = new ArrayList<Integer>(chunks.size());
+        for (var chunk : chunks) {
+            if (chunk instanceof Chunk.CodeChunk code) {
+                // V pomnilniku je shranjena linearizirana koda.
+                imageChunks.add((Chunk.CodeChunk) memory.ldM(code.frame.label));
+                addresses.add(memory.address(code.frame.label));
+            } else if (chunk instanceof Chunk.GlobalChunk global) {
+                imageChunks.add(global);
+                addresses.add(memory.address(global.access.label));
+            }
+        }
+        return new ProgramImage(memory.size, optimizationLevel, imageChunks, addresses);
+    }
+
+    /**
+     * Pripravi nov pomnilnik z enako vsebino, kot jo pripravi `LinCodeGenerator`.
+     */
+    public Memory load() {
+        var memory = new Memory(memorySize);
+        for (int i = 0; i < chunks.size(); i++) {
+            var chunk = chunks.get(i);
+            int address = addresses.get(i);
+            if (chunk instanceof Chunk.CodeChunk code) {
+                memory.registerLabel(code.frame.label, address);
+                memory.stM(code.frame.label, code);
+            } else if (chunk instanceof Chunk.DataChunk data) {
+                memory.registerLabel(data.access.label, address);
+                memory.stM(address, data.data);
+            } else if (chunk instanceof Chunk.GlobalChunk global) {
+                memory.registerLabel(global.access.label, address);
+            }
+        }
+        return memory;
+    }
+
+    /**
+     * Linearizirani fragmenti kode.
+     */
+    public List<Chunk.CodeChunk> codeChunks() {
+        var codeChunks = new ArrayList<Chunk.CodeChunk>();
+        for (var chunk : chunks) {
+            if (chunk instanceof Chunk.CodeChunk code) {
+                codeChunks.add(code);
+            }
+        }
+        return codeChunks;
+    }
+
+    /**
+     * Koda funkcije `main`, če obstaja.
+     */
+    public Optional<Chunk.CodeChunk> mainChunk() {
+        for (var chunk : codeChunks()) {
+            if (chunk.frame.label.name.equals("main")) {
+                return Optional.of(chunk);
+            }
+        }
+        return Optional.empty();
+    }
+
+    // --------- zapis ----------
+
+    public void write(Path path) throws IOException {
+        requireNonNull(path);
+        var bytes = new ByteArrayOutputStream();
+        var out = new Writer(new DataOutputStream(bytes));
+        out.writeImage();
+        var payload = bytes.toByteArray();
+        var header = ByteBuffer.allocate(headerSize)
+            .putInt(magic)
+            .putInt(version)
+            .putInt(payload.length)
+            .putInt(checksum(payload, 0, payload.length))
+            .array();
+        try (var file = Files.newOutputStream(path)) {
+            file.write(header);
+            file.write(payload);
+        }
+    }
+
+    /**
+     * Prebere sliko.
+     *
+     * @throws IllegalArgumentException če datoteka ni veljavna slika.
+     */
+    public static ProgramImage read(Path path) throws IOException {
+        requireNonNull(path);
+        var bytes = Files.readAllBytes(path);
+        if (bytes.length < headerSize) {
+            throw new IllegalArgumentException("Not a PINS image!");
+        }
+        var header = ByteBuffer.wrap(bytes, 0, headerSize);
+        if (header.getInt() != magic) {
+            throw new IllegalArgumentException("Not a PINS image!");
+        }
+        if (header.getInt() != version) {
+            throw new IllegalArgumentException("Unsupported PINS image version!");
+        }
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length != bytes.length - headerSize || checksum != checksum(bytes, headerSize, length)) {
+            throw new IllegalArgumentException("Corrupt PINS image!");
+        }
+        var in = new Reader(new DataInputStream(new ByteArrayInputStream(bytes, headerSize, length)));
+        try {
+            return in.readImage();
+        } catch (IOException | IndexOutOfBoundsException | ClassCastException e) {
+            throw new IllegalArgumentException("Corrupt PINS image!", e);
+        }
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        var crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Zapis slike. Labele so zapisane le ob prvi pojavitvi, kasneje le indeks.
+     */
+    private class Writer {
+        private final DataOutputStream out;
+
+        private final Map<String, Integer> labels = new HashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeImage() throws IOException {
+            out.writeInt(memorySize);
+            out.writeInt(optimizationLevel);
+            out.writeInt(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                var chunk = chunks.get(i);
+                if (chunk instanceof Chunk.CodeChunk code) {
+                    out.writeByte(CODE);
+                    out.writeInt(addresses.get(i));
+                    writeLabel(code.frame.label);
+                    out.writeInt(code.frame.staticLevel);
+                    out.writeInt(code.frame.parametersSize);
+                    out.writeInt(code.frame.argumentsSize);
+                    out.writeInt(code.frame.localsSize);
+                    write(code.code);
+                } else if (chunk instanceof Chunk.DataChunk data) {
+                    out.writeByte(DATA);
+                    out.writeInt(addresses.get(i));
+                    writeLabel(data.access.label);
+                    out.writeInt(data.access.size);
+                    writeString(data.data);
+                } else if (chunk instanceof Chunk.GlobalChunk global) {
+                    out.writeByte(GLOBAL);
+                    out.writeInt(addresses.get(i));
+                    writeLabel(global.access.label);
+                    out.writeInt(global.access.size);
+                }
+            }
+        }
+
+        private void write(IRNode node) throws IOException {
+            if (node instanceof BinopExpr binop) {
+                out.writeByte(BINOP);
+                out.writeByte(binop.op.ordinal());
+                write(binop.lhs);
+                write(binop.rhs);
+            } else if (node instanceof CallExpr call) {
+                out.writeByte(CALL);
+                writeLabel(call.label);
+                writeList(call.args);
+            } else if (node instanceof ConstantExpr constant) {
+                out.writeByte(CONSTANT);
+                out.writeInt(constant.constant);
+            } else if (node instanceof EseqExpr eseq) {
+                out.writeByte(ESEQ);
+                write(eseq.stmt);
+                write(eseq.expr);
+            } else if (node instanceof MemExpr mem) {
+                out.writeByte(MEM);
+                write(mem.expr);
+            } else if (node instanceof NameExpr name) {
+                out.writeByte(NAME);
+                writeLabel(name.label);
+            } else if (node instanceof TempExpr temp) {
+                out.writeByte(TEMP);
+                out.writeInt(temp.temp.id);
+            } else if (node instanceof CJumpStmt cjump) {
+                out.writeByte(CJUMP);
+                write(cjump.condition);
+                writeLabel(cjump.thenLabel);
+                writeLabel(cjump.elseLabel);
+            } else if (node instanceof ExpStmt exp) {
+                out.writeByte(EXP);
+                write(exp.expr);
+            } else if (node instanceof JumpStmt jump) {
+                out.writeByte(JUMP);
+                writeLabel(jump.label);
+            } else if (node instanceof LabelStmt label) {
+                out.writeByte(LABEL);
+                writeLabel(label.label);
+            } else if (node instanceof MoveStmt move) {
+                out.writeByte(MOVE);
+                write(move.dst);
+                write(move.src);
+            } else if (node instanceof SeqStmt seq) {
+                out.writeByte(SEQ);
+                writeList(seq.statements);
+            } else {
+                throw new IllegalArgumentException("Unknown node type");
+            }
+        }
+
+        private void writeList(List<? extends IRNode> nodes) throws IOException {
+            out.writeInt(nodes.size());
+            for (var node : nodes) {
+                write(node);
+            }
+        }
+
+        private void writeLabel(Frame.Label label) throws IOException {
+            var index = labels.get(label.name);
+            if (index != null) {
+                out.writeInt(index);
+                return;
+            }
+            labels.put(label.name, labels.size());
+            out.writeInt(-1);
+            writeString(label.name);
+        }
+
+        private void writeString(String str) throws IOException {
+            var encoded = str.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(encoded.length);
+            out.write(encoded);
+        }
+    }
+
+    /**
+     * Branje slike, zapisane z `Writer`.
+     */
+    private static class Reader {
+        private final DataInputStream in;
+
+        private final List<Frame.Label> labels = new ArrayList<>();
+
+        /**
+         * Vsaka začasna spremenljivka je v sliki predstavljena z enim objektom.
+         */
+        private final Map<Integer, Frame.Temp> temps = new HashMap<>();
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        ProgramImage readImage() throws IOException {
+            int memorySize = in.readInt();
+            int optimizationLevel = in.readInt();
+            int count = in.readInt();
+            var chunks = new ArrayList<Chunk>();
+            var addresses = new ArrayList<Integer>();
+            for (int i = 0; i < count; i++) {
+                byte kind = in.readByte();
+                addresses.add(in.readInt());
+                var label = readLabel();
+                switch (kind) {
+                    case CODE -> {
+                        var frame = new Frame(label, in.readInt(), in.readInt(), in.readInt(), in.readInt());
+                        chunks.add(new Chunk.CodeChunk(frame, (IRStmt) read()));
+                    }
+                    case DATA -> {
+                        var access = new Access.Global(in.readInt(), label);
+                        chunks.add(new Chunk.DataChunk(access, readString()));
+                    }
+                    case GLOBAL -> chunks.add(new Chunk.GlobalChunk(new Access.Global(in.readInt(), label)));
+                    default -> throw new IllegalArgumentException("Corrupt PINS image!");
+                }
+            }
+            if (in.available() != 0) {
+                throw new IllegalArgumentException("Corrupt PINS image!");
+            }
+            return new ProgramImage(memorySize, optimizationLevel, chunks, addresses);
+        }
+
+        private IRNode read() throws IOException {
+            byte tag = in.readByte();
+            return switch (tag) {
+                case BINOP -> {
+                    var op = operators[in.readByte()];
+                    var lhs = (IRExpr) read();
+                    yield new BinopExpr(lhs, (IRExpr) read(), op);
+                }
+                case CALL -> {
+                    var label = readLabel();
+                    yield new CallExpr(label, readList(IRExpr.class));
+                }
+                case CONSTANT -> new ConstantExpr(in.readInt());
+                case ESEQ -> {
+                    var stmt = (IRStmt) read();
+                    yield new EseqExpr(stmt, (IRExpr) read());
+                }
+                case MEM -> new MemExpr((IRExpr) read());
+                case NAME -> new NameExpr(readLabel());
+                case TEMP -> new TempExpr(temps.computeIfAbsent(in.readInt(), Frame.Temp::withId));
+                case CJUMP -> {
+                    var condition = (IRExpr) read();
+                    var thenLabel = readLabel();
+                    yield new CJumpStmt(condition, thenLabel, readLabel());
+                }
+                case EXP -> new ExpStmt((IRExpr) read());
+                case JUMP -> new JumpStmt(readLabel());
+                case LABEL -> new LabelStmt(readLabel());
+                case MOVE -> {
+                    var dst = (IRExpr) read();
+                    yield new MoveStmt(dst, (IRExpr) read());
+                }
+                case SEQ -> new SeqStmt(readList(IRStmt.class));
+                default -> throw new IllegalArgumentException("Corrupt PINS image!");
+            };
+        }
+
+        private <T extends IRNode> List<T> readList(Class<T> type) throws IOException {
+            int count = in.readInt();
+            if (count < 0 || count > in.available()) {
+                throw new IllegalArgumentException("Corrupt PINS image!");
+            }
+            var nodes = new ArrayList<T>(count);
+            for (int i = 0; i < count; i++) {
+                nodes.add(type.cast(read()));
+            }
+            return nodes;
+        }
+
+        private Frame.Label readLabel() throws IOException {
+            int index = in.readInt();
+            if (index >= 0) {
+                return labels.get(index);
+            }
+            var label = Frame.Label.named(readString());
+            labels.add(label);
+            return label;
+        }
+
+        private String readString() throws IOException {
+            int length = in.readInt();
+            if (length < 0 || length > in.available()) {
+                throw new IllegalArgumentException("Corrupt PINS image!");
+            }
+            return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * @ Author: turk
+ * @ Description: Izpis števila izvedenih ukazov navideznega stroja.
+ */
+
+package compiler.interpret;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.PrintStream;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+public class InstructionProfile {
+    private InstructionProfile() {}
+
+    /**
+     * Izpiše število izvedenih ukazov, urejeno padajoče.
+     *
+     * @param executed Število izvedenih ukazov, indeksirano z operacijsko kodo.
+     * @param opcodes  Razred, ki operacijske kode definira kot javne konstante.
+     */
+    public static void print(PrintStream stream, long[] executed, Class<?> opcodes) {
+        requireNonNull(stream, executed, opcodes);
+        var names = new String[executed.length];
+        for (var field : opcodes.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == int.class) {
+                try {
+                    int opcode = field.getInt(null);
+                    if (opcode >= 0 && opcode < names.length) {
+                        names[opcode] = field.getName();
+                    }
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+        long total = 0;
+        for (var count : executed) {
+            total += count;
+        }
+        stream.println("Izvedeni ukazi:");
+        var order = new Integer[executed.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(executed[b], executed[a]));
+        for (var opcode : order) {
+            if (executed[opcode] > 0) {
+                stream.printf("  %-12s %12d %6.2f%%%n", names[opcode], executed[opcode], 100.0 * executed[opcode] / total);
+            }
+        }
+        stream.printf("  %-12s %12d%n", "SKUPAJ", total);
+    }
+}
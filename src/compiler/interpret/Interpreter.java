@@ -13,6 +13,7 @@ import java.nio.charset.Charset;
 import java.util.*;
 
 import common.Constants;
+import common.DumpWriter;
 import common.Report;
 import compiler.frm.Frame;
 import compiler.gen.Memory;
@@ -52,8 +53,47 @@ public class Interpreter {
 
     private CodeChunk currentChunk;
 
+    /**
+     * Razrešeni klici (inline cache).
+     *
+     * Klic razrešimo ob prvi izvedbi, nato pa ne primerjamo več imen
+     * in ne iščemo labele v pomnilniku.
+     */
+    private final Map<CallExpr, CallTarget> callTargets = new IdentityHashMap<>();
+
+    /**
+     * Cilji povezanih klicev (`LinkedCallExpr`) po indeksih fragmentov.
+     */
+    private final CallTarget[] functions;
+
+    /**
+     * Razporeditve registrov po fragmentih kode.
+     */
+    private final Map<CodeChunk, RegisterLayout> layouts = new IdentityHashMap<>();
+
+    /**
+     * Profiler izvajanja; `null`, če izvajanja ne profiliramo.
+     */
+    private final Profiler profiler;
+
     public Interpreter(Memory memory, Optional<PrintStream> outputStream) {
-        requireNonNull(memory, outputStream);
+        this(memory, outputStream, Optional.empty());
+    }
+
+    public Interpreter(Memory memory, Optional<PrintStream> outputStream, Optional<Profiler> profiler) {
+        this(memory, List.of(), outputStream, profiler);
+    }
+
+    /**
+     * @param functions fragmenti kode, ki jih je povezal `Linker` (cilji povezanih klicev).
+     */
+    public Interpreter(Memory memory, List<CodeChunk> functions, Optional<PrintStream> outputStream, Optional<Profiler> profiler) {
+        requireNonNull(memory, functions, outputStream, profiler);
+        this.functions = new CallTarget[functions.size()];
+        for (int i = 0; i < functions.size(); i++) {
+            this.functions[i] = new CallTarget(CallTarget.Kind.FUNCTION, functions.get(i));
+        }
+        this.profiler = profiler.orElse(null);
         this.memory = memory;
         this.outputStream = outputStream;
         this.stackPointer = memory.size - Constants.WordSize;
@@ -64,240 +104,464 @@ public class Interpreter {
     // --------- izvajanje navideznega stroja ----------
 
     public void interpret(CodeChunk chunk) {
-        memory.stM(framePointer + Constants.WordSize, 999); // argument v funkcijo main
-        memory.stM(framePointer - chunk.frame.oldFPOffset(), framePointer); // oldFP
-        memory.stM(framePointer, framePointer); // trenuten FP naj kaže sam nase, da lahko dostopamo do argumentov višje
+        memory.stW(framePointer + Constants.WordSize, 999); // argument v funkcijo main
+        memory.stW(framePointer - chunk.frame.oldFPOffset(), framePointer); // oldFP
+        memory.stW(framePointer, framePointer); // trenuten FP naj kaže sam nase, da lahko dostopamo do argumentov višje
 
-        internalInterpret(chunk, new HashMap<>());
+        internalInterpret(chunk);
     }
 
-    private void internalInterpret(CodeChunk chunk, Map<Frame.Temp, Object> temps) {
-        // @TODO: Nastavi FP in SP na nove vrednosti!
+    /**
+     * Izvede fragment kode.
+     *
+     * Klice funkcij na nivoju stavkov (`MOVE(TEMP, CALL)` in `EXP(CALL)`) ne izvajamo
+     * rekurzivno, temveč na sklad aktivacij dodamo novo aktivacijo. Globina rekurzije
+     * programa je tako omejena le z velikostjo pomnilnika navideznega stroja.
+     */
+    private void internalInterpret(CodeChunk chunk) {
+        // Aktivacije klicateljev; trenutna aktivacija je v lokalnih spremenljivkah.
+        var callers = new ArrayDeque<Activation>();
+        var activation = enter(chunk);
+        var statements = activation.statements;
+        int pc = 0;
+
+        while (true) {
+            if (pc >= statements.size()) {
+                leave(activation.chunk);
+                if (callers.isEmpty()) {
+                    return;
+                }
+                activation = callers.pop();
+                statements = activation.statements;
+                pc = activation.pc;
+                this.currentChunk = activation.chunk;
+                var value = memory.ldW(this.stackPointer);
+                if (activation.resultSlot >= 0) {
+                    activation.registers[activation.resultSlot] = value;
+                }
+                continue;
+            }
 
-        this.currentChunk = chunk;
-        if (!(chunk.frame.label.name.equals("main"))) {
-            this.framePointer = this.stackPointer;
-        }
-        this.stackPointer -= chunk.frame.size();
- 
-        Object result = null;
-        if (chunk.code instanceof SeqStmt seq) {
-            for (int pc = 0; pc < seq.statements.size(); pc++) {
-                var stmt = seq.statements.get(pc);
-                result = execute(stmt, temps);
-                if (result instanceof Frame.Label label) {
-                    for (int q = 0; q < seq.statements.size(); q++) {
-                        if (seq.statements.get(q) instanceof LabelStmt labelStmt && labelStmt.label.equals(label)) {
+            if (profiler != null) {
+                profiler.statement(pc);
+            }
+            var stmt = statements.get(pc);
+            var call = statementCall(stmt);
+            if (call != null) {
+                var target = target(call);
+                if (target.kind == CallTarget.Kind.FUNCTION) {
+                    pushArguments(call, target, activation);
+                    activation.resultSlot = (stmt instanceof MoveStmt move) ? activation.slot(((TempExpr) move.dst).temp) : -1;
+                    activation.pc = pc + 1;
+                    callers.push(activation);
+                    activation = enter(target.chunk);
+                    statements = activation.statements;
+                    pc = 0;
+                    continue;
+                }
+            }
+
+            var label = execute(stmt, activation);
+            if (label != null) {
+                // Skok na naslednji stavek - labele ni treba iskati.
+                if (pc + 1 < statements.size() && statements.get(pc + 1) instanceof LabelStmt next && next.label.equals(label)) {
+                    pc++;
+                } else {
+                    for (int q = 0; q < statements.size(); q++) {
+                        if (statements.get(q) instanceof LabelStmt labelStmt && labelStmt.label.equals(label)) {
                             pc = q;
                             break;
                         }
                     }
                 }
             }
+            pc++;
+        }
+    }
+
+    /**
+     * Vstop v funkcijo - nastavi FP in SP na nove vrednosti.
+     */
+    private Activation enter(CodeChunk chunk) {
+        this.currentChunk = chunk;
+        if (!(chunk.frame.label.name.equals("main"))) {
+            this.framePointer = this.stackPointer;
+        }
+        this.stackPointer -= chunk.frame.size();
+        if (profiler != null) {
+            profiler.enter(chunk);
+        }
+
+        if (chunk.code instanceof SeqStmt seq) {
+            return new Activation(chunk, seq.statements, layout(chunk, seq));
         } else {
             throw new RuntimeException("Linearize IR!");
         }
-      
-        // @TODO: Ponastavi FP in SP na stare vrednosti!
+    }
 
-        this.currentChunk = chunk;
+    /**
+     * Izstop iz funkcije - ponastavi FP in SP na stare vrednosti.
+     */
+    private void leave(CodeChunk chunk) {
+        if (profiler != null) {
+            profiler.leave();
+        }
         this.stackPointer = this.framePointer;
-        int oldFP = (int) memory.ldM(this.stackPointer - chunk.frame.oldFPOffset());
+        int oldFP = memory.ldW(this.stackPointer - chunk.frame.oldFPOffset());
         this.framePointer = oldFP;
     }
 
-    private Object execute(IRStmt stmt, Map<Frame.Temp, Object> temps) {
+    /**
+     * Klic funkcije, ki je celoten stavek oz. celotna desna stran prirejanja v register.
+     */
+    private CallExpr statementCall(IRStmt stmt) {
+        if (stmt instanceof MoveStmt move && move.dst instanceof TempExpr && move.src instanceof CallExpr call) {
+            return call;
+        } else if (stmt instanceof ExpStmt exp && exp.expr instanceof CallExpr call) {
+            return call;
+        }
+        return null;
+    }
+
+    /**
+     * Izvede stavek.
+     *
+     * @return labela, na katero skočimo, oz. `null`, če nadaljujemo z naslednjim stavkom.
+     */
+    private Frame.Label execute(IRStmt stmt, Activation activation) {
         if (stmt instanceof CJumpStmt cjump) {
-            return execute(cjump, temps);
+            return execute(cjump, activation);
         } else if (stmt instanceof ExpStmt exp) {
-            return execute(exp, temps);
+            execute(exp.expr, activation);
+            return null;
         } else if (stmt instanceof JumpStmt jump) {
-            return execute(jump, temps);
+            return jump.label;
         } else if (stmt instanceof LabelStmt label) {
             return null;
         } else if (stmt instanceof MoveStmt move) {
-            return execute(move, temps);
+            execute(move, activation);
+            return null;
         } else {
             throw new RuntimeException("Cannot execute this statement!");
         }
     }
 
-    private Object execute(CJumpStmt cjump, Map<Frame.Temp, Object> temps) {
-        var condition = execute(cjump.condition, temps);
-        return (toInt(condition) == 1) ? cjump.thenLabel : cjump.elseLabel;
-    }
-
-    private Object execute(ExpStmt exp, Map<Frame.Temp, Object> temps) {
-        return execute(exp.expr, temps);
+    private Frame.Label execute(CJumpStmt cjump, Activation activation) {
+        var condition = execute(cjump.condition, activation);
+        return (condition == 1) ? cjump.thenLabel : cjump.elseLabel;
     }
 
-    private Object execute(JumpStmt jump, Map<Frame.Temp, Object> temps) {
-        return jump.label;
-    }
-
-    private Object execute(MoveStmt move, Map<Frame.Temp, Object> temps) {
+    private void execute(MoveStmt move, Activation activation) {
         // Mem levi otrok od Move - pomeni STORE, drugje pomeni READ
         var dst = move.dst;
         var src = move.src;
 
         if (dst instanceof TempExpr tempExpr) {
-            temps.put(tempExpr.temp, execute(src, temps));
-            // memory.stT(tempExpr.temp, execute(src, temps));
+            activation.registers[activation.slot(tempExpr.temp)] = execute(src, activation);
         } else if (dst instanceof MemExpr memExpr) {
-            var address = execute(memExpr.expr, temps);
-            var value = execute(src, temps);
-            memory.stM((int) address, value);
+            var address = execute(memExpr.expr, activation);
+            var value = execute(src, activation);
+            memory.stW(address, value);
         }
-        return src;
     }
 
-    private Object execute(IRExpr expr, Map<Frame.Temp, Object> temps) {
+    private int execute(IRExpr expr, Activation activation) {
         if (expr instanceof BinopExpr binopExpr) {
-            return execute(binopExpr, temps);
+            return execute(binopExpr, activation);
         } else if (expr instanceof CallExpr callExpr) {
-            return execute(callExpr, temps);
+            return execute(callExpr, activation);
         } else if (expr instanceof ConstantExpr constantExpr) {
-            return execute(constantExpr);
+            return constantExpr.constant;
         } else if (expr instanceof EseqExpr eseqExpr) {
             throw new RuntimeException("Cannot execute ESEQ; linearize IRCode!");
         } else if (expr instanceof MemExpr memExpr) {
-            return execute(memExpr, temps);
+            return execute(memExpr, activation);
         } else if (expr instanceof NameExpr nameExpr) {
             return execute(nameExpr);
         } else if (expr instanceof TempExpr tempExpr) {
-            return execute(tempExpr, temps);
+            return activation.registers[activation.slot(tempExpr.temp)];
         } else {
             throw new IllegalArgumentException("Unknown expr type");
         }
     }
 
-    private Object execute(BinopExpr binop, Map<Frame.Temp, Object> temps) {
-        var lhs = execute(binop.lhs, temps);
-        var rhs = execute(binop.rhs, temps);
+    private int execute(BinopExpr binop, Activation activation) {
+        var lhs = execute(binop.lhs, activation);
+        var rhs = execute(binop.rhs, activation);
         BinopExpr.Operator op = binop.op;
         switch (op) {
             case ADD:
-                return toInt(lhs) + toInt(rhs);
+                return lhs + rhs;
             case SUB:
-                return toInt(lhs) - toInt(rhs);
+                return lhs - rhs;
             case MUL:
-                return toInt(lhs) * toInt(rhs);
+                return lhs * rhs;
             case DIV:
-                return toInt(lhs) / toInt(rhs);
+                return lhs / rhs;
             case AND:
-                return toInt(lhs) & toInt(rhs);
+                return lhs & rhs;
             case OR:
-                return toInt(lhs) | toInt(rhs);
+                return lhs | rhs;
             case EQ:
-                return toInt(lhs) == toInt(rhs) ? 1 : 0;
+                return toInt(lhs == rhs);
             case NEQ:
-                return toInt(lhs) != toInt(rhs) ? 1 : 0;
+                return toInt(lhs != rhs);
             case LT:
-                return toInt(lhs) < toInt(rhs) ? 1 : 0;
+                return toInt(lhs < rhs);
             case GT:
-                return toInt(lhs) > toInt(rhs) ? 1 : 0;
+                return toInt(lhs > rhs);
             case LEQ:
-                return toInt(lhs) <= toInt(rhs) ? 1 : 0;
+                return toInt(lhs <= rhs);
             case GEQ:
-                return toInt(lhs) >= toInt(rhs) ? 1 : 0;
+                return toInt(lhs >= rhs);
             default:
                 Report.error("Neznan operator!");
-                return null;
+                return 0;
+        }
+    }
+
+    /**
+     * Klic funkcije v izrazu. Funkcije 'standardne knjižnice', ki ne vračajo
+     * vrednosti, vrnejo 0 (enako kot skladovni stroj).
+     */
+    private int execute(CallExpr call, Activation activation) {
+        var target = target(call);
+        switch (target.kind) {
+            case PRINT_INT: {
+                var arg = execute(call.args.get(1), activation);
+                outputStream.ifPresent(stream -> stream.println(arg));
+                return 0;
+            }
+            case PRINT_STR: {
+                var address = execute(call.args.get(1), activation);
+                var res = memory.ldM(address);
+                outputStream.ifPresent(stream -> stream.println("\""+res+"\""));
+                return 0;
+            }
+            case PRINT_LOG: {
+                var arg = execute(call.args.get(1), activation);
+                outputStream.ifPresent(stream -> stream.println(toBool(arg)));
+                return 0;
+            }
+            case RAND_INT: {
+                var min = execute(call.args.get(1), activation);
+                var max = execute(call.args.get(2), activation);
+                return random.nextInt(min, max);
+            }
+            case SEED: {
+                var seed = execute(call.args.get(1), activation);
+                random = new Random(seed);
+                return 0;
+            }
+            default: {
+                // Klic znotraj izraza - izvedemo ga rekurzivno
+                // (klicana funkcija dobi svoje 'lokalne registre').
+                var caller = currentChunk;
+                pushArguments(call, target, activation);
+                internalInterpret(target.chunk);
+                currentChunk = caller;
+                return memory.ldW(this.stackPointer);
+            }
+        }
+    }
+
+    /**
+     * Zapiše argumente in stari FP v pomnilnik.
+     */
+    private void pushArguments(CallExpr call, CallTarget target, Activation activation) {
+        // Zapiši argumente v pomnilnik
+        for (int i = 0; i < call.args.size(); i++) {
+            var arg = call.args.get(i);
+            var argValue = execute(arg, activation);
+            memory.stW(this.stackPointer + (i * Constants.WordSize), argValue);
+        }
+
+        // Nastavi old FP
+        memory.stW(stackPointer - target.oldFPOffset, framePointer);
+    }
+
+    /**
+     * Razrešen cilj klica (iz predpomnilnika).
+     */
+    private CallTarget target(CallExpr call) {
+        if (call instanceof LinkedCallExpr linked) {
+            return functions[linked.function];
         }
+        var target = callTargets.get(call);
+        if (target == null) {
+            target = resolve(call);
+            callTargets.put(call, target);
+        }
+        return target;
     }
 
-    private Object execute(CallExpr call, Map<Frame.Temp, Object> temps) {
+    /**
+     * Razreši klic: funkcija iz 'standardne knjižnice' ali fragment kode.
+     */
+    private CallTarget resolve(CallExpr call) {
         if (call.label.name.equals(Constants.printIntLabel)) {
             if (call.args.size() != 2) { throw new RuntimeException("Invalid argument count!"); }
-            var arg = execute(call.args.get(1), temps);
-            outputStream.ifPresent(stream -> stream.println(arg));
-            return null;
+            return new CallTarget(CallTarget.Kind.PRINT_INT, null);
         } else if (call.label.name.equals(Constants.printStringLabel)) {
             if (call.args.size() != 2) { throw new RuntimeException("Invalid argument count!"); }
-            var address = execute(call.args.get(1), temps);
-            var res = memory.ldM(toInt(address));
-            outputStream.ifPresent(stream -> stream.println("\""+res+"\""));
-            return null;
+            return new CallTarget(CallTarget.Kind.PRINT_STR, null);
         } else if (call.label.name.equals(Constants.printLogLabel)) {
             if (call.args.size() != 2) { throw new RuntimeException("Invalid argument count!"); }
-            var arg = execute(call.args.get(1), temps);
-            outputStream.ifPresent(stream -> stream.println(toBool(arg)));
-            return null;
+            return new CallTarget(CallTarget.Kind.PRINT_LOG, null);
         } else if (call.label.name.equals(Constants.randIntLabel)) {
             if (call.args.size() != 3) { throw new RuntimeException("Invalid argument count!"); }
-            var min = toInt(execute(call.args.get(1), temps));
-            var max = toInt(execute(call.args.get(2), temps));
-            return random.nextInt(min, max);
+            return new CallTarget(CallTarget.Kind.RAND_INT, null);
         } else if (call.label.name.equals(Constants.seedLabel)) {
             if (call.args.size() != 2) { throw new RuntimeException("Invalid argument count!"); }
-            var seed = toInt(execute(call.args.get(1), temps));
-            random = new Random(seed);
-            return null;
+            return new CallTarget(CallTarget.Kind.SEED, null);
         } else if (memory.ldM(call.label) instanceof CodeChunk chunk) {
-            // ...
-            // internalInterpret(chunk, new HashMap<>())
-            //                          ~~~~~~~~~~~~~ 'lokalni registri'
-            // ...
-
-            // Zapiši argumente v pomnilnik
-            for (int i = 0; i < call.args.size(); i++) {
-                var arg = call.args.get(i);
-                var argValue = execute(arg, temps);
-                memory.stM(this.stackPointer + (i * Constants.WordSize), argValue);
-            }
-
-            // Nastavi old FP
-            memory.stM(stackPointer - chunk.frame.oldFPOffset(), framePointer);
-
-            internalInterpret(chunk, new HashMap<>());
-            return memory.ldM(this.stackPointer);
+            return new CallTarget(CallTarget.Kind.FUNCTION, chunk);
         } else {
             throw new RuntimeException("Only functions can be called!");
         }
     }
 
-    private Object execute(ConstantExpr constant) {
-        return constant.constant;
+    private int execute(MemExpr mem, Activation activation) {
+        var address = execute(mem.expr, activation);
+        return memory.ldWOrAddress(address);
     }
 
-    private Object execute(MemExpr mem, Map<Frame.Temp, Object> temps) {
-        if (mem.expr instanceof NameExpr name && (!(name.label.name.equals(Constants.stackPointer) || name.label.name.equals(Constants.framePointer)))) {
-            return execute(mem.expr, temps);
-        } else {
-            var address = execute(mem.expr, temps);
-            try {
-                return memory.ldM(toInt(address));
-            } catch (Exception e) {
-                return address;
-            }
-        }
-    }
-
-    private Object execute(NameExpr name) {
-        if (Objects.equals(name.label, Frame.Label.named(Constants.framePointer)))
+    private int execute(NameExpr name) {
+        if (name.register == NameExpr.Register.FP)
             return this.framePointer;
-        else if (Objects.equals(name.label, Frame.Label.named(Constants.stackPointer)))
+        else if (name.register == NameExpr.Register.SP)
             return this.stackPointer;
         else {
             return memory.address(name.label);
         }
     }
 
-    private Object execute(TempExpr temp, Map<Frame.Temp, Object> temps) {
-        return temps.get(temp.temp);
+    /**
+     * Razporeditev registrov fragmenta kode (iz predpomnilnika).
+     */
+    private RegisterLayout layout(CodeChunk chunk, SeqStmt code) {
+        var layout = layouts.get(chunk);
+        if (layout == null) {
+            var range = new int[] { Integer.MAX_VALUE, Integer.MIN_VALUE };
+            for (var stmt : code.statements) {
+                collectTemps(stmt, range);
+            }
+            layout = range[0] > range[1] ? new RegisterLayout(0, 0) : new RegisterLayout(range[0], range[1] - range[0] + 1);
+            layouts.put(chunk, layout);
+        }
+        return layout;
     }
 
-    // ----------- pomožne funkcije -----------
+    /**
+     * Najmanjši in največji id začasnih spremenljivk v vozlišču.
+     */
+    private void collectTemps(IRNode node, int[] range) {
+        if (node instanceof TempExpr temp) {
+            range[0] = Math.min(range[0], temp.temp.id);
+            range[1] = Math.max(range[1], temp.temp.id);
+        } else if (node instanceof BinopExpr binop) {
+            collectTemps(binop.lhs, range);
+            collectTemps(binop.rhs, range);
+        } else if (node instanceof CallExpr call) {
+            for (var arg : call.args) {
+                collectTemps(arg, range);
+            }
+        } else if (node instanceof MemExpr mem) {
+            collectTemps(mem.expr, range);
+        } else if (node instanceof CJumpStmt cjump) {
+            collectTemps(cjump.condition, range);
+        } else if (node instanceof ExpStmt exp) {
+            collectTemps(exp.expr, range);
+        } else if (node instanceof MoveStmt move) {
+            collectTemps(move.dst, range);
+            collectTemps(move.src, range);
+        }
+    }
+
+    /**
+     * Aktivacija funkcije na skladu aktivacij.
+     */
+    private static class Activation {
+        final CodeChunk chunk;
+        final List<IRStmt> statements;
+
+        /**
+         * Registri aktivacije (indeksirani z `slot`).
+         */
+        final int[] registers;
+
+        /**
+         * Id začasne spremenljivke v registru 0.
+         */
+        final int base;
+
+        /**
+         * Indeks naslednjega stavka (shranimo ga ob klicu).
+         */
+        int pc = 0;
+
+        /**
+         * Register, v katerega shranimo rezultat klica, ki se trenutno izvaja (-1, če ga ni).
+         */
+        int resultSlot = -1;
+
+        Activation(CodeChunk chunk, List<IRStmt> statements, RegisterLayout layout) {
+            this.chunk = chunk;
+            this.statements = statements;
+            this.registers = new int[layout.size];
+            this.base = layout.base;
+        }
 
-    private int toInt(Object obj) {
-        if (obj instanceof Integer integer) {
-            return integer;
+        int slot(Frame.Temp temp) {
+            return temp.id - base;
         }
-        throw new IllegalArgumentException("Could not convert obj to integer!");
     }
 
-    private boolean toBool(Object obj) {
-        return toInt(obj) == 0 ? false : true;
+    /**
+     * Razporeditev registrov: začasne spremenljivke fragmenta imajo id-je
+     * med `base` in `base + size - 1`, register je tako indeks `id - base`.
+     */
+    private static class RegisterLayout {
+        final int base;
+        final int size;
+
+        RegisterLayout(int base, int size) {
+            this.base = base;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Razrešen cilj klica.
+     */
+    private static class CallTarget {
+        enum Kind {
+            PRINT_INT, PRINT_STR, PRINT_LOG, RAND_INT, SEED, FUNCTION
+        }
+
+        final Kind kind;
+
+        /**
+         * Fragment kode klicane funkcije (samo za `FUNCTION`).
+         */
+        final CodeChunk chunk;
+
+        /**
+         * Odmik starega FP v klicnem zapisu klicane funkcije.
+         */
+        final int oldFPOffset;
+
+        CallTarget(Kind kind, CodeChunk chunk) {
+            this.kind = kind;
+            this.chunk = chunk;
+            this.oldFPOffset = chunk != null ? chunk.frame.oldFPOffset() : 0;
+        }
+    }
+
+    // ----------- pomožne funkcije -----------
+
+    private boolean toBool(int value) {
+        return value == 0 ? false : true;
     }
 
     private int toInt(boolean bool) {
@@ -306,8 +570,9 @@ public class Interpreter {
 
     private String prettyDescription(IRNode ir, int indent) {
         var os = new ByteArrayOutputStream();
-        var ps = new PrintStream(os);
-        new IRPrettyPrint(ps, indent).print(ir);
+        var writer = new DumpWriter(os, Charset.defaultCharset());
+        new IRPrettyPrint(writer, indent).print(ir);
+        writer.flush();
         return os.toString(Charset.defaultCharset());
     }
 
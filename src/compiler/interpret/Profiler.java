@@ -0,0 +1,360 @@
+/**
+ * @ Author: turk
+ * @ Description: Profiliranje izvajanja vmesne kode.
+ */
+
+package compiler.interpret;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import compiler.frm.Frame;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+/**
+ * Za vsak fragment kode beleži število klicev, vključni in izključni čas
+ * ter število izvedb posameznih stavkov. Izključni čas beleži tudi po klicnih
+ * skladih, ki jih izpiše v obliki za izris grafov plamenov (collapsed stacks).
+ */
+public class Profiler {
+    /**
+     * Največja globina klicnega sklada, ki jo ločimo v izpisu skladov.
+     * Globlji klici se štejejo k zadnjemu ločenemu klicu.
+     */
+    private static final int maxStackDepth = 256;
+
+    /**
+     * Število najpogosteje izvedenih stavkov, ki jih izpišemo za vsak fragment.
+     */
+    private static final int hotStatements = 10;
+
+    private final Map<CodeChunk, ChunkProfile> chunks = new IdentityHashMap<>();
+
+    /**
+     * Fragmenti, iz katerih izpišemo stavke izvedenih fragmentov (glej `describeAs`).
+     */
+    private final Map<CodeChunk, CodeChunk> sources = new IdentityHashMap<>();
+
+    /**
+     * Profili v vrstnem redu prvega klica.
+     */
+    private final List<ChunkProfile> order = new ArrayList<>();
+
+    /**
+     * Koren drevesa klicnih skladov.
+     */
+    private final StackNode root = new StackNode(null, 0);
+
+    /**
+     * Aktivne funkcije.
+     */
+    private final ArrayDeque<Activation> activations = new ArrayDeque<>();
+
+    /**
+     * Profil trenutno aktivne funkcije.
+     */
+    private ChunkProfile current;
+
+    // --------- beleženje ----------
+
+    /**
+     * Stavke fragmenta `chunk` v poročilu izpišemo iz fragmenta `source`
+     * z enakim zaporedjem stavkov (npr. iz fragmenta pred povezovanjem).
+     */
+    public void describeAs(CodeChunk chunk, CodeChunk source) {
+        requireNonNull(chunk, source);
+        if (chunk.code.statements().size() != source.code.statements().size()) {
+            throw new IllegalArgumentException("Chunks have different statements!");
+        }
+        sources.put(chunk, source);
+    }
+
+    /**
+     * Vstop v funkcijo.
+     */
+    public void enter(CodeChunk chunk) {
+        var profile = chunks.get(chunk);
+        if (profile == null) {
+            profile = new ChunkProfile(sources.getOrDefault(chunk, chunk));
+            chunks.put(chunk, profile);
+            order.add(profile);
+        }
+        profile.calls++;
+        profile.active++;
+        var parent = activations.isEmpty() ? root : activations.peek().node;
+        var node = parent.depth < maxStackDepth ? parent.child(profile.name) : parent;
+        activations.push(new Activation(profile, node, System.nanoTime()));
+        current = profile;
+    }
+
+    /**
+     * Izstop iz funkcije.
+     */
+    public void leave() {
+        var activation = activations.pop();
+        long elapsed = System.nanoTime() - activation.start;
+        long exclusive = elapsed - activation.children;
+        var profile = activation.profile;
+        profile.exclusive += exclusive;
+        activation.node.exclusive += exclusive;
+        // Pri rekurziji vključni čas štejemo le za najbolj zunanji klic.
+        if (--profile.active == 0) {
+            profile.inclusive += elapsed;
+        }
+        if (activations.isEmpty()) {
+            current = null;
+        } else {
+            activations.peek().children += elapsed;
+            current = activations.peek().profile;
+        }
+    }
+
+    /**
+     * Izvedba stavka z indeksom `pc` v trenutno aktivni funkciji.
+     */
+    public void statement(int pc) {
+        current.statements[pc]++;
+    }
+
+    // --------- izpis ----------
+
+    /**
+     * Izpiše poročilo: funkcije, vroče labele (zanke) in najpogosteje izvedene stavke.
+     */
+    public void printReport(PrintStream stream) {
+        requireNonNull(stream);
+        var profiles = new ArrayList<>(order);
+        profiles.sort(Comparator.comparingLong((ChunkProfile p) -> p.exclusive).reversed());
+        long total = 0;
+        for (var profile : profiles) {
+            total += profile.exclusive;
+        }
+
+        stream.println("Profil izvajanja:");
+        stream.printf("  %-16s %10s %14s %14s %7s %14s%n", "funkcija", "klici", "vključno[ms]", "izključno[ms]", "%", "stavki");
+        for (var profile : profiles) {
+            stream.printf("  %-16s %10d %14.3f %14.3f %6.2f%% %14d%n",
+                profile.name,
+                profile.calls,
+                profile.inclusive / 1e6,
+                profile.exclusive / 1e6,
+                total == 0 ? 0.0 : 100.0 * profile.exclusive / total,
+                profile.executedStatements());
+        }
+
+        stream.println("Vroče labele:");
+        var labels = new ArrayList<LabelProfile>();
+        for (var profile : profiles) {
+            labels.addAll(profile.labels());
+        }
+        labels.sort(Comparator.comparingLong((LabelProfile l) -> l.count).reversed());
+        for (var label : labels.subList(0, Math.min(hotStatements, labels.size()))) {
+            if (label.count > 0) {
+                stream.printf("  %-16s %-10s %14d%s%n", label.function, label.label, label.count, label.loop ? "  (zanka)" : "");
+            }
+        }
+
+        for (var profile : profiles) {
+            stream.println("Stavki funkcije " + profile.name + ":");
+            var indices = new ArrayList<Integer>();
+            for (int i = 0; i < profile.statements.length; i++) {
+                if (profile.statements[i] > 0) {
+                    indices.add(i);
+                }
+            }
+            indices.sort(Comparator.comparingLong((Integer i) -> profile.statements[i]).reversed());
+            for (var index : indices.subList(0, Math.min(hotStatements, indices.size()))) {
+                stream.printf("  #%-5d %14d  %s%n", index, profile.statements[index], describe(profile.code.get(index)));
+            }
+        }
+    }
+
+    /**
+     * Izpiše izključni čas (v nanosekundah) po klicnih skladih,
+     * vsak sklad v svoji vrstici: `main;f;g 1234`.
+     */
+    public void printCollapsedStacks(PrintStream stream) {
+        requireNonNull(stream);
+        var path = new StringBuilder();
+        for (var child : root.children.values()) {
+            printCollapsedStacks(stream, child, path);
+        }
+    }
+
+    private void printCollapsedStacks(PrintStream stream, StackNode node, StringBuilder path) {
+        int length = path.length();
+        if (length > 0) {
+            path.append(';');
+        }
+        path.append(node.name);
+        if (node.exclusive > 0) {
+            stream.println(path + " " + node.exclusive);
+        }
+        for (var child : node.children.values()) {
+            printCollapsedStacks(stream, child, path);
+        }
+        path.setLength(length);
+    }
+
+    /**
+     * Kratek enovrstični opis stavka.
+     */
+    private static String describe(IRStmt stmt) {
+        if (stmt instanceof LabelStmt label) {
+            return "LABEL " + label.label;
+        } else if (stmt instanceof JumpStmt jump) {
+            return "JUMP " + jump.label;
+        } else if (stmt instanceof CJumpStmt cjump) {
+            return "CJUMP " + describe(cjump.condition) + " " + cjump.thenLabel + " " + cjump.elseLabel;
+        } else if (stmt instanceof MoveStmt move) {
+            return "MOVE " + describe(move.dst) + " <- " + describe(move.src);
+        } else if (stmt instanceof ExpStmt exp) {
+            return "EXP " + describe(exp.expr);
+        }
+        return stmt.getClass().getSimpleName();
+    }
+
+    private static String describe(IRExpr expr) {
+        if (expr instanceof BinopExpr binop) {
+            return "(" + describe(binop.lhs) + " " + binop.op + " " + describe(binop.rhs) + ")";
+        } else if (expr instanceof CallExpr call) {
+            return "CALL " + call.label.name;
+        } else if (expr instanceof ConstantExpr constant) {
+            return String.valueOf(constant.constant);
+        } else if (expr instanceof MemExpr mem) {
+            return "MEM[" + describe(mem.expr) + "]";
+        } else if (expr instanceof NameExpr name) {
+            return name.label.name;
+        } else if (expr instanceof TempExpr temp) {
+            return temp.temp.toString();
+        }
+        return expr.getClass().getSimpleName();
+    }
+
+    // --------- pomožni razredi ----------
+
+    private static class ChunkProfile {
+        final String name;
+        final List<IRStmt> code;
+        final long[] statements;
+        long calls;
+        long inclusive;
+        long exclusive;
+
+        /**
+         * Število aktivacij funkcije na klicnem skladu.
+         */
+        int active;
+
+        ChunkProfile(CodeChunk chunk) {
+            this.name = chunk.frame.label.name;
+            this.code = chunk.code.statements();
+            this.statements = new long[code.size()];
+        }
+
+        long executedStatements() {
+            long sum = 0;
+            for (var count : statements) {
+                sum += count;
+            }
+            return sum;
+        }
+
+        /**
+         * Labele in število izvedb prvega stavka za njimi.
+         * Labela je začetek zanke, če nanjo skoči kasnejši skok.
+         */
+        List<LabelProfile> labels() {
+            Set<Frame.Label> backwardTargets = new HashSet<>();
+            Set<Frame.Label> seen = new HashSet<>();
+            for (var stmt : code) {
+                if (stmt instanceof LabelStmt label) {
+                    seen.add(label.label);
+                } else if (stmt instanceof JumpStmt jump && seen.contains(jump.label)) {
+                    backwardTargets.add(jump.label);
+                } else if (stmt instanceof CJumpStmt cjump) {
+                    if (seen.contains(cjump.thenLabel)) {
+                        backwardTargets.add(cjump.thenLabel);
+                    }
+                    if (seen.contains(cjump.elseLabel)) {
+                        backwardTargets.add(cjump.elseLabel);
+                    }
+                }
+            }
+            var result = new ArrayList<LabelProfile>();
+            for (int i = 0; i < code.size(); i++) {
+                if (code.get(i) instanceof LabelStmt label) {
+                    int next = i;
+                    while (next < code.size() && code.get(next) instanceof LabelStmt) {
+                        next++;
+                    }
+                    long count = next < code.size() ? statements[next] : 0;
+                    result.add(new LabelProfile(name, label.label, count, backwardTargets.contains(label.label)));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class LabelProfile {
+        final String function;
+        final Frame.Label label;
+        final long count;
+        final boolean loop;
+
+        LabelProfile(String function, Frame.Label label, long count, boolean loop) {
+            this.function = function;
+            this.label = label;
+            this.count = count;
+            this.loop = loop;
+        }
+    }
+
+    /**
+     * Vozlišče drevesa klicnih skladov.
+     */
+    private static class StackNode {
+        final String name;
+        final int depth;
+        final Map<String, StackNode> children = new LinkedHashMap<>();
+        long exclusive;
+
+        StackNode(String name, int depth) {
+            this.name = name;
+            this.depth = depth;
+        }
+
+        StackNode child(String name) {
+            return children.computeIfAbsent(name, __ -> new StackNode(name, depth + 1));
+        }
+    }
+
+    private static class Activation {
+        final ChunkProfile profile;
+        final StackNode node;
+        final long start;
+
+        /**
+         * Čas, porabljen v klicanih funkcijah.
+         */
+        long children;
+
+        Activation(ChunkProfile profile, StackNode node, long start) {
+            this.profile = profile;
+            this.node = node;
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * @ Author: turk
+ * @ Description: Pomnilnik navideznih strojev, ki delujejo nad celimi števili.
+ */
+
+package compiler.interpret;
+
+import common.Constants;
+
+/**
+ * Pomnilnik, razdeljen na besede velikosti `Constants.WordSize`.
+ *
+ * Naslovi in preverjanja so enaki kot v `compiler.gen.Memory`,
+ * vrednosti pa so cela števila, shranjena v tabeli.
+ */
+public class WordMemory {
+    /**
+     * Velikost pomnilnika v bajtih.
+     */
+    public final int size;
+
+    /**
+     * Vsebina pomnilnika, indeksirana z `naslov / Constants.WordSize`.
+     */
+    private final int[] words;
+
+    /**
+     * Ali je bila na naslov že shranjena vrednost?
+     */
+    private final boolean[] defined;
+
+    public WordMemory(int size) {
+        this.size = size;
+        this.words = new int[size / Constants.WordSize + 1];
+        this.defined = new boolean[words.length];
+    }
+
+    /**
+     * Na podan naslov shrani vrednost.
+     */
+    public void store(int address, int value) {
+        validateAddress(address);
+        words[address / Constants.WordSize] = value;
+        defined[address / Constants.WordSize] = true;
+    }
+
+    /**
+     * Preberi vrednost iz podanega naslova.
+     */
+    public int load(int address) {
+        validateAddress(address);
+        if (!defined[address / Constants.WordSize]) {
+            throw new IllegalArgumentException("Empty address " + address + "!");
+        }
+        return words[address / Constants.WordSize];
+    }
+
+    /**
+     * Preberi vrednost iz podanega naslova.
+     *
+     * Če naslov ni veljaven ali na njem ni vrednosti, vrne kar naslov
+     * (enako kot `Interpreter` pri izrazu `MEM`).
+     */
+    public int loadOrAddress(int address) {
+        if (address > 0 && address <= size && address % Constants.WordSize == 0 && defined[address / Constants.WordSize]) {
+            return words[address / Constants.WordSize];
+        }
+        return address;
+    }
+
+    private void validateAddress(int address) {
+        if (address > size || address < 0) {
+            throw new IllegalArgumentException("Address " + address + " out of bounds!");
+        }
+        if (address == 0) {
+            throw new IllegalArgumentException("Cannot dereference a null pointer!");
+        }
+        if (address % Constants.WordSize != 0) {
+            throw new IllegalArgumentException("Address " + address + " not aligned!");
+        }
+    }
+}
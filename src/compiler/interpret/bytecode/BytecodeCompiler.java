@@ -0,0 +1,350 @@
+/**
+ * @ Author: turk
+ * @ Description: Prevajanje linearizirane vmesne kode v ukaze skladovnega stroja.
+ */
+
+package compiler.interpret.bytecode;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import common.Constants;
+import compiler.frm.Frame;
+import compiler.gen.Memory;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+/**
+ * Vsak stavek prevedemo v zaporedje ukazov, ki se začne in konča s praznim
+ * skladom operandov. Začasne spremenljivke preslikamo v zaporedne indekse,
+ * naslove label in cilje skokov pa razrešimo že med prevajanjem.
+ */
+public class BytecodeCompiler {
+    /**
+     * Pomnilnik z naslovi imenovanih lokacij.
+     */
+    private final Memory memory;
+
+    /**
+     * Preslikava iz label funkcij v indekse v tabeli funkcij.
+     */
+    private final Map<Frame.Label, Integer> functionIndices = new HashMap<>();
+
+    private final List<BytecodeFunction> functions = new ArrayList<>();
+
+    /**
+     * Ali pogoste vzorce prevedemo v superukaze?
+     */
+    private final boolean superinstructions;
+
+    // ----------- stanje prevajanja funkcije -----------
+
+    private int[] code;
+    private int length;
+    private int depth;
+    private int maxDepth;
+    private Map<Frame.Temp, Integer> temps;
+    private Map<Frame.Label, Integer> labels;
+
+    /**
+     * Mesta operandov skokov, ki jih moramo popraviti, ko poznamo položaje label.
+     */
+    private Map<Integer, Frame.Label> jumpOperands;
+
+    public BytecodeCompiler(Memory memory) {
+        this(memory, 0);
+    }
+
+    /**
+     * Pri stopnji optimizacije 1 ali več uporabimo superukaze
+     * za dostope relativno na FP in indeksiranje tabel.
+     */
+    public BytecodeCompiler(Memory memory, int optimizationLevel) {
+        requireNonNull(memory);
+        this.memory = memory;
+        this.superinstructions = optimizationLevel >= 1;
+    }
+
+    /**
+     * Prevede linearizirane fragmente kode.
+     */
+    public BytecodeProgram compile(List<CodeChunk> chunks) {
+        requireNonNull(chunks);
+        Optional<BytecodeFunction> main = Optional.empty();
+        for (var chunk : chunks) {
+            var function = new BytecodeFunction(chunk.frame);
+            functionIndices.put(chunk.frame.label, functions.size());
+            functions.add(function);
+            if (function.isMain && main.isEmpty()) {
+                main = Optional.of(function);
+            }
+        }
+        for (int i = 0; i < chunks.size(); i++) {
+            compile(chunks.get(i), functions.get(i));
+        }
+        return new BytecodeProgram(functions, main);
+    }
+
+    private void compile(CodeChunk chunk, BytecodeFunction function) {
+        code = new int[64];
+        length = 0;
+        depth = 0;
+        maxDepth = 0;
+        temps = new HashMap<>();
+        labels = new HashMap<>();
+        jumpOperands = new HashMap<>();
+
+        if (chunk.code instanceof SeqStmt seq) {
+            for (var stmt : seq.statements) {
+                compile(stmt);
+            }
+        } else {
+            throw new RuntimeException("Linearize IR!");
+        }
+        emit(Opcode.RET);
+
+        for (var operand : jumpOperands.entrySet()) {
+            var target = labels.get(operand.getValue());
+            if (target == null) {
+                throw new IllegalArgumentException("Unknown label " + operand.getValue() + "!");
+            }
+            code[operand.getKey()] = target;
+        }
+
+        function.code = Arrays.copyOf(code, length);
+        function.temps = temps.size();
+        function.maxStack = maxDepth;
+    }
+
+    private void compile(IRStmt stmt) {
+        if (stmt instanceof CJumpStmt cjump) {
+            compile(cjump.condition);
+            emit(Opcode.CJUMP, -1);
+            jumpTo(cjump.thenLabel);
+            jumpTo(cjump.elseLabel);
+        } else if (stmt instanceof ExpStmt exp) {
+            compile(exp.expr);
+            emit(Opcode.POP, -1);
+        } else if (stmt instanceof JumpStmt jump) {
+            emit(Opcode.JUMP);
+            jumpTo(jump.label);
+        } else if (stmt instanceof LabelStmt label) {
+            labels.putIfAbsent(label.label, length);
+        } else if (stmt instanceof MoveStmt move) {
+            compile(move);
+        } else {
+            throw new RuntimeException("Cannot execute this statement!");
+        }
+    }
+
+    private void compile(MoveStmt move) {
+        if (move.dst instanceof TempExpr tempExpr) {
+            compile(move.src);
+            emit(Opcode.TSTORE, -1);
+            emit(temp(tempExpr.temp));
+        } else if (move.dst instanceof MemExpr memExpr) {
+            var offset = frameOffset(memExpr.expr);
+            var index = index(memExpr.expr);
+            if (offset.isPresent()) {
+                compile(move.src);
+                emit(Opcode.STOREFP, -1);
+                emit(offset.get());
+            } else if (index.isPresent()) {
+                compile(index.get().lhs);
+                compile(((BinopExpr) index.get().rhs).lhs);
+                compile(move.src);
+                emit(Opcode.STOREINDEX, -3);
+                emit(scale(index.get()));
+            } else {
+                compile(memExpr.expr);
+                compile(move.src);
+                emit(Opcode.STORE, -2);
+            }
+        }
+    }
+
+    private void compile(IRExpr expr) {
+        if (expr instanceof BinopExpr binopExpr) {
+            var index = index(binopExpr);
+            if (index.isPresent()) {
+                compile(binopExpr.lhs);
+                compile(((BinopExpr) binopExpr.rhs).lhs);
+                emit(Opcode.INDEX, -1);
+                emit(scale(binopExpr));
+            } else {
+                compile(binopExpr.lhs);
+                compile(binopExpr.rhs);
+                emit(opcode(binopExpr.op), -1);
+            }
+        } else if (expr instanceof CallExpr callExpr) {
+            compile(callExpr);
+        } else if (expr instanceof ConstantExpr constantExpr) {
+            emit(Opcode.CONST, 1);
+            emit(constantExpr.constant);
+        } else if (expr instanceof EseqExpr) {
+            throw new RuntimeException("Cannot execute ESEQ; linearize IRCode!");
+        } else if (expr instanceof MemExpr memExpr) {
+            var offset = frameOffset(memExpr.expr);
+            var index = index(memExpr.expr);
+            if (offset.isPresent()) {
+                emit(Opcode.LOADFP, 1);
+                emit(offset.get());
+            } else if (index.isPresent()) {
+                compile(index.get().lhs);
+                compile(((BinopExpr) index.get().rhs).lhs);
+                emit(Opcode.LOADINDEX, -1);
+                emit(scale(index.get()));
+            } else {
+                compile(memExpr.expr);
+                emit(Opcode.LOAD, 0);
+            }
+        } else if (expr instanceof NameExpr nameExpr) {
+            compile(nameExpr);
+        } else if (expr instanceof TempExpr tempExpr) {
+            emit(Opcode.TLOAD, 1);
+            emit(temp(tempExpr.temp));
+        } else {
+            throw new IllegalArgumentException("Unknown expr type");
+        }
+    }
+
+    private void compile(NameExpr name) {
+        if (name.register == NameExpr.Register.FP) {
+            emit(Opcode.FP, 1);
+        } else if (name.register == NameExpr.Register.SP) {
+            emit(Opcode.SP, 1);
+        } else {
+            emit(Opcode.CONST, 1);
+            emit(memory.address(name.label));
+        }
+    }
+
+    private void compile(CallExpr call) {
+        var name = call.label.name;
+        if (name.equals(Constants.printIntLabel)) {
+            stdlib(call, 2, Opcode.PRINT_INT);
+        } else if (name.equals(Constants.printStringLabel)) {
+            stdlib(call, 2, Opcode.PRINT_STR);
+        } else if (name.equals(Constants.printLogLabel)) {
+            stdlib(call, 2, Opcode.PRINT_LOG);
+        } else if (name.equals(Constants.randIntLabel)) {
+            stdlib(call, 3, Opcode.RAND_INT);
+        } else if (name.equals(Constants.seedLabel)) {
+            stdlib(call, 2, Opcode.SEED);
+        } else if (functionIndices.containsKey(call.label)) {
+            for (var arg : call.args) {
+                compile(arg);
+            }
+            emit(Opcode.CALL, 1 - call.args.size());
+            emit(functionIndices.get(call.label));
+            emit(call.args.size());
+        } else {
+            throw new RuntimeException("Only functions can be called!");
+        }
+    }
+
+    /**
+     * Klic funkcije iz 'standardne knjižnice'.
+     * Prvi argument (statična povezava) ne vpliva na rezultat, zato ga ne izračunamo.
+     */
+    private void stdlib(CallExpr call, int argumentCount, int opcode) {
+        if (call.args.size() != argumentCount) { throw new RuntimeException("Invalid argument count!"); }
+        for (int i = 1; i < argumentCount; i++) {
+            compile(call.args.get(i));
+        }
+        emit(opcode, 2 - argumentCount);
+    }
+
+    private int opcode(BinopExpr.Operator op) {
+        switch (op) {
+            case ADD: return Opcode.ADD;
+            case SUB: return Opcode.SUB;
+            case MUL: return Opcode.MUL;
+            case DIV: return Opcode.DIV;
+            case AND: return Opcode.AND;
+            case OR: return Opcode.OR;
+            case EQ: return Opcode.EQ;
+            case NEQ: return Opcode.NEQ;
+            case LT: return Opcode.LT;
+            case GT: return Opcode.GT;
+            case LEQ: return Opcode.LEQ;
+            case GEQ: return Opcode.GEQ;
+            default: return Opcode.TRAP;
+        }
+    }
+
+    // ----------- superukazi -----------
+
+    /**
+     * Odmik naslova `FP + k` (oz. `FP - k`) od FP.
+     */
+    private Optional<Integer> frameOffset(IRExpr address) {
+        if (!superinstructions) {
+            return Optional.empty();
+        }
+        if (address instanceof NameExpr name && name.register == NameExpr.Register.FP) {
+            return Optional.of(0);
+        }
+        if (address instanceof BinopExpr binop
+                && binop.lhs instanceof NameExpr name && name.register == NameExpr.Register.FP
+                && binop.rhs instanceof ConstantExpr constant) {
+            if (binop.op == BinopExpr.Operator.ADD) {
+                return Optional.of(constant.constant);
+            } else if (binop.op == BinopExpr.Operator.SUB) {
+                return Optional.of(-constant.constant);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Indeksiranje tabele `baza + i * k`.
+     */
+    private Optional<BinopExpr> index(IRExpr address) {
+        if (superinstructions
+                && address instanceof BinopExpr binop && binop.op == BinopExpr.Operator.ADD
+                && binop.rhs instanceof BinopExpr mul && mul.op == BinopExpr.Operator.MUL
+                && mul.rhs instanceof ConstantExpr) {
+            return Optional.of(binop);
+        }
+        return Optional.empty();
+    }
+
+    private int scale(BinopExpr index) {
+        return ((ConstantExpr) ((BinopExpr) index.rhs).rhs).constant;
+    }
+
+    // ----------- pomožne funkcije -----------
+
+    private int temp(Frame.Temp temp) {
+        return temps.computeIfAbsent(temp, __ -> temps.size());
+    }
+
+    private void jumpTo(Frame.Label label) {
+        jumpOperands.put(length, label);
+        emit(-1);
+    }
+
+    /**
+     * Doda ukaz in posodobi globino sklada operandov.
+     */
+    private void emit(int opcode, int stackEffect) {
+        emit(opcode);
+        depth += stackEffect;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    private void emit(int value) {
+        if (length == code.length) {
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        code[length++] = value;
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * @ Author: turk
+ * @ Description: Prevedena funkcija skladovnega navideznega stroja.
+ */
+
+package compiler.interpret.bytecode;
+
+import static common.RequireNonNull.requireNonNull;
+
+import compiler.frm.Frame;
+
+public class BytecodeFunction {
+    /**
+     * Klicni zapis funkcije.
+     */
+    public final Frame frame;
+
+    /**
+     * Zaporedje ukazov (glej `Opcode`).
+     */
+    int[] code;
+
+    /**
+     * Število začasnih spremenljivk.
+     */
+    int temps;
+
+    /**
+     * Največja globina sklada operandov.
+     */
+    int maxStack;
+
+    /**
+     * Velikost klicnega zapisa.
+     */
+    final int frameSize;
+
+    /**
+     * Odmik starega FP od FP.
+     */
+    final int oldFPOffset;
+
+    /**
+     * Ali je funkcija `main`?
+     */
+    final boolean isMain;
+
+    BytecodeFunction(Frame frame) {
+        requireNonNull(frame);
+        this.frame = frame;
+        this.frameSize = frame.size();
+        this.oldFPOffset = frame.oldFPOffset();
+        this.isMain = frame.label.name.equals("main");
+    }
+
+    /**
+     * Število ukazov in operandov.
+     */
+    public int codeSize() {
+        return code.length;
+    }
+
+    @Override
+    public String toString() {
+        return frame.label.name;
+    }
+}
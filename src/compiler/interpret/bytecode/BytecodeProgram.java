@@ -0,0 +1,29 @@
+/**
+ * @ Author: turk
+ * @ Description: Preveden program skladovnega navideznega stroja.
+ */
+
+package compiler.interpret.bytecode;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.List;
+import java.util.Optional;
+
+public class BytecodeProgram {
+    /**
+     * Tabela funkcij - ukaz `CALL` se nanjo sklicuje z indeksom.
+     */
+    public final List<BytecodeFunction> functions;
+
+    /**
+     * Funkcija `main`, če obstaja.
+     */
+    public final Optional<BytecodeFunction> main;
+
+    BytecodeProgram(List<BytecodeFunction> functions, Optional<BytecodeFunction> main) {
+        requireNonNull(functions, main);
+        this.functions = functions;
+        this.main = main;
+    }
+}
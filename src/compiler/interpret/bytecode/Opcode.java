@@ -0,0 +1,65 @@
+/**
+ * @ Author: turk
+ * @ Description: Ukazi skladovnega navideznega stroja.
+ */
+
+package compiler.interpret.bytecode;
+
+/**
+ * Operacijske kode ukazov.
+ *
+ * Ukaz je zapisan kot operacijska koda, ki ji sledijo operandi (v oklepajih).
+ * Ukazi brez operandov jemljejo vrednosti z vrha sklada operandov.
+ */
+public class Opcode {
+    private Opcode() {}
+
+    // Vrednosti
+    public static final int CONST  = 0;  // (vrednost) -> vrednost
+    public static final int FP     = 1;  // -> FP
+    public static final int SP     = 2;  // -> SP
+    public static final int TLOAD  = 3;  // (temp) -> vrednost
+    public static final int TSTORE = 4;  // (temp) vrednost ->
+    public static final int LOAD   = 5;  // naslov -> vrednost
+    public static final int STORE  = 6;  // naslov vrednost ->
+    public static final int POP    = 7;  // vrednost ->
+
+    // Aritmetične, logične in primerjalne operacije: lhs rhs -> rezultat
+    public static final int ADD = 8;
+    public static final int SUB = 9;
+    public static final int MUL = 10;
+    public static final int DIV = 11;
+    public static final int AND = 12;
+    public static final int OR  = 13;
+    public static final int EQ  = 14;
+    public static final int NEQ = 15;
+    public static final int LT  = 16;
+    public static final int GT  = 17;
+    public static final int LEQ = 18;
+    public static final int GEQ = 19;
+
+    // Skoki (operandi so indeksi ukazov)
+    public static final int JUMP  = 20; // (cilj)
+    public static final int CJUMP = 21; // (then, else) pogoj ->
+
+    // Klici
+    public static final int CALL = 22;  // (funkcija, število argumentov) argumenti... -> rezultat
+    public static final int RET  = 23;
+
+    // 'Standardna knjižnica'
+    public static final int PRINT_INT = 24; // vrednost -> 0
+    public static final int PRINT_STR = 25; // naslov -> 0
+    public static final int PRINT_LOG = 26; // vrednost -> 0
+    public static final int RAND_INT  = 27; // min max -> vrednost
+    public static final int SEED      = 28; // seme -> 0
+
+    // Superukazi (samo pri optimizaciji)
+    public static final int LOADFP     = 29; // (k) -> [FP + k]
+    public static final int STOREFP    = 30; // (k) vrednost ->            [FP + k] <- vrednost
+    public static final int INDEX      = 31; // (k) baza i -> baza + i * k
+    public static final int LOADINDEX  = 32; // (k) baza i -> [baza + i * k]
+    public static final int STOREINDEX = 33; // (k) baza i vrednost ->     [baza + i * k] <- vrednost
+
+    // Operator, ki ga stroj ne podpira; napako javimo šele ob izvajanju (kot drevesni tolmač)
+    public static final int TRAP = 34;
+}
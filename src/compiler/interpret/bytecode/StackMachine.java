@@ -0,0 +1,274 @@
+/**
+ * @ Author: turk
+ * @ Description: Skladovni navidezni stroj.
+ */
+
+package compiler.interpret.bytecode;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.PrintStream;
+import java.util.Optional;
+import java.util.Random;
+
+import common.Constants;
+import common.Report;
+import compiler.gen.Memory;
+import compiler.interpret.WordMemory;
+
+/**
+ * Izvaja programe, ki jih prevede `BytecodeCompiler`.
+ *
+ * Klicni dogovor, razporeditev pomnilnika in izpis so enaki kot v
+ * `compiler.interpret.Interpreter`.
+ */
+public class StackMachine {
+    /**
+     * Pomnilnik navideznega stroja.
+     */
+    private final WordMemory memory;
+
+    /**
+     * Pomnilnik prevajalnika - iz njega beremo nize.
+     */
+    private final Memory strings;
+
+    /**
+     * Izhodni tok, kamor izpisujemo rezultate izvajanja programa.
+     */
+    private final Optional<PrintStream> outputStream;
+
+    /**
+     * Generator naključnih števil.
+     */
+    private Random random;
+
+    /**
+     * Skladovni kazalec (kaže na dno sklada).
+     */
+    private int stackPointer;
+
+    /**
+     * Klicni kazalec (kaže na vrh aktivnega klicnega zapisa).
+     */
+    private int framePointer;
+
+    /**
+     * Tabela funkcij programa.
+     */
+    private BytecodeFunction[] functions;
+
+    /**
+     * Število izvedenih ukazov, indeksirano z operacijsko kodo.
+     * `null`, če ukazov ne štejemo.
+     */
+    private final long[] executed;
+
+    public StackMachine(Memory memory, Optional<PrintStream> outputStream) {
+        this(memory, outputStream, false);
+    }
+
+    public StackMachine(Memory memory, Optional<PrintStream> outputStream, boolean countInstructions) {
+        requireNonNull(memory, outputStream);
+        this.memory = new WordMemory(memory.size);
+        this.strings = memory;
+        this.outputStream = outputStream;
+        this.stackPointer = memory.size - Constants.WordSize;
+        this.framePointer = memory.size - Constants.WordSize;
+        this.random = new Random();
+        this.executed = countInstructions ? new long[Opcode.TRAP + 1] : null;
+    }
+
+    // --------- izvajanje navideznega stroja ----------
+
+    public void interpret(BytecodeProgram program) {
+        requireNonNull(program);
+        if (program.main.isEmpty()) {
+            return;
+        }
+        var main = program.main.get();
+        this.functions = program.functions.toArray(new BytecodeFunction[0]);
+
+        memory.store(framePointer + Constants.WordSize, 999); // argument v funkcijo main
+        memory.store(framePointer - main.oldFPOffset, framePointer); // oldFP
+        memory.store(framePointer, framePointer); // trenuten FP naj kaže sam nase, da lahko dostopamo do argumentov višje
+
+        execute(main);
+    }
+
+    /**
+     * Število izvedenih ukazov po operacijskih kodah, če jih štejemo.
+     */
+    public Optional<long[]> executedInstructions() {
+        return Optional.ofNullable(executed);
+    }
+
+    private void execute(BytecodeFunction function) {
+        if (!function.isMain) {
+            this.framePointer = this.stackPointer;
+        }
+        this.stackPointer -= function.frameSize;
+
+        final int[] code = function.code;
+        final int[] temps = new int[function.temps];
+        final int[] stack = new int[function.maxStack];
+        int top = 0;
+        int pc = 0;
+
+        loop:
+        while (true) {
+            if (executed != null) {
+                executed[code[pc]]++;
+            }
+            switch (code[pc++]) {
+                case Opcode.CONST:
+                    stack[top++] = code[pc++];
+                    break;
+                case Opcode.FP:
+                    stack[top++] = framePointer;
+                    break;
+                case Opcode.SP:
+                    stack[top++] = stackPointer;
+                    break;
+                case Opcode.TLOAD:
+                    stack[top++] = temps[code[pc++]];
+                    break;
+                case Opcode.TSTORE:
+                    temps[code[pc++]] = stack[--top];
+                    break;
+                case Opcode.LOAD:
+                    stack[top - 1] = memory.loadOrAddress(stack[top - 1]);
+                    break;
+                case Opcode.STORE:
+                    top -= 2;
+                    memory.store(stack[top], stack[top + 1]);
+                    break;
+                case Opcode.POP:
+                    top--;
+                    break;
+                case Opcode.ADD:
+                    top--;
+                    stack[top - 1] = stack[top - 1] + stack[top];
+                    break;
+                case Opcode.SUB:
+                    top--;
+                    stack[top - 1] = stack[top - 1] - stack[top];
+                    break;
+                case Opcode.MUL:
+                    top--;
+                    stack[top - 1] = stack[top - 1] * stack[top];
+                    break;
+                case Opcode.DIV:
+                    top--;
+                    stack[top - 1] = stack[top - 1] / stack[top];
+                    break;
+                case Opcode.AND:
+                    top--;
+                    stack[top - 1] = stack[top - 1] & stack[top];
+                    break;
+                case Opcode.OR:
+                    top--;
+                    stack[top - 1] = stack[top - 1] | stack[top];
+                    break;
+                case Opcode.EQ:
+                    top--;
+                    stack[top - 1] = stack[top - 1] == stack[top] ? 1 : 0;
+                    break;
+                case Opcode.NEQ:
+                    top--;
+                    stack[top - 1] = stack[top - 1] != stack[top] ? 1 : 0;
+                    break;
+                case Opcode.LT:
+                    top--;
+                    stack[top - 1] = stack[top - 1] < stack[top] ? 1 : 0;
+                    break;
+                case Opcode.GT:
+                    top--;
+                    stack[top - 1] = stack[top - 1] > stack[top] ? 1 : 0;
+                    break;
+                case Opcode.LEQ:
+                    top--;
+                    stack[top - 1] = stack[top - 1] <= stack[top] ? 1 : 0;
+                    break;
+                case Opcode.GEQ:
+                    top--;
+                    stack[top - 1] = stack[top - 1] >= stack[top] ? 1 : 0;
+                    break;
+                case Opcode.JUMP:
+                    pc = code[pc];
+                    break;
+                case Opcode.CJUMP:
+                    pc = stack[--top] == 1 ? code[pc] : code[pc + 1];
+                    break;
+                case Opcode.CALL: {
+                    var callee = functions[code[pc++]];
+                    int argc = code[pc++];
+                    top -= argc;
+                    // Zapiši argumente v pomnilnik
+                    for (int i = 0; i < argc; i++) {
+                        memory.store(stackPointer + i * Constants.WordSize, stack[top + i]);
+                    }
+                    // Nastavi old FP
+                    memory.store(stackPointer - callee.oldFPOffset, framePointer);
+                    execute(callee);
+                    stack[top++] = memory.load(stackPointer);
+                    break;
+                }
+                case Opcode.RET:
+                    break loop;
+                case Opcode.PRINT_INT: {
+                    var value = stack[top - 1];
+                    outputStream.ifPresent(stream -> stream.println(value));
+                    stack[top - 1] = 0;
+                    break;
+                }
+                case Opcode.PRINT_STR: {
+                    var res = strings.ldM(stack[top - 1]);
+                    outputStream.ifPresent(stream -> stream.println("\"" + res + "\""));
+                    stack[top - 1] = 0;
+                    break;
+                }
+                case Opcode.PRINT_LOG: {
+                    var value = stack[top - 1] != 0;
+                    outputStream.ifPresent(stream -> stream.println(value));
+                    stack[top - 1] = 0;
+                    break;
+                }
+                case Opcode.RAND_INT:
+                    top--;
+                    stack[top - 1] = random.nextInt(stack[top - 1], stack[top]);
+                    break;
+                case Opcode.SEED:
+                    random = new Random(stack[top - 1]);
+                    stack[top - 1] = 0;
+                    break;
+                case Opcode.LOADFP:
+                    stack[top++] = memory.loadOrAddress(framePointer + code[pc++]);
+                    break;
+                case Opcode.STOREFP:
+                    memory.store(framePointer + code[pc++], stack[--top]);
+                    break;
+                case Opcode.INDEX:
+                    top--;
+                    stack[top - 1] = stack[top - 1] + stack[top] * code[pc++];
+                    break;
+                case Opcode.LOADINDEX:
+                    top--;
+                    stack[top - 1] = memory.loadOrAddress(stack[top - 1] + stack[top] * code[pc++]);
+                    break;
+                case Opcode.STOREINDEX:
+                    top -= 3;
+                    memory.store(stack[top] + stack[top + 1] * code[pc++], stack[top + 2]);
+                    break;
+                case Opcode.TRAP:
+                    Report.error("Neznan operator!");
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode " + code[pc - 1] + "!");
+            }
+        }
+
+        this.stackPointer = this.framePointer;
+        this.framePointer = memory.load(this.stackPointer - function.oldFPOffset);
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * @ Author: turk
+ * @ Description: Ukazi registrskega navideznega stroja.
+ */
+
+package compiler.interpret.register;
+
+/**
+ * Operacijske kode ukazov.
+ *
+ * Ukaz je zapisan kot operacijska koda, ki ji sledijo operandi.
+ * `d`, `a`, `b` in `c` so indeksi registrov, `imm` in `off` sta konstanti,
+ * cilji skokov pa indeksi ukazov.
+ */
+public class Opcode {
+    private Opcode() {}
+
+    public static final int MOVI  = 0;  // d imm        d <- imm
+    public static final int MOV   = 1;  // d a          d <- a
+    public static final int LOAD  = 2;  // d a off      d <- [a + off]
+    public static final int STORE = 3;  // a off b      [a + off] <- b
+    public static final int JUMP  = 4;  // cilj
+    public static final int CJUMP = 5;  // c then else  skoči na then, če je c = 1
+    public static final int CALL  = 6;  // d funkcija n a1 ... an
+    public static final int RET   = 7;
+
+    // 'Standardna knjižnica'
+    public static final int PRINT_INT = 8;  // d a
+    public static final int PRINT_STR = 9;  // d a
+    public static final int PRINT_LOG = 10; // d a
+    public static final int RAND_INT  = 11; // d a b
+    public static final int SEED      = 12; // d a
+
+    // Indeksiranje tabel (samo pri optimizaciji)
+    public static final int LOADX  = 13; // d a b k      d <- [a + b * k]
+    public static final int STOREX = 14; // a b k c      [a + b * k] <- c
+
+    // Operator, ki ga stroj ne podpira; napako javimo šele ob izvajanju (kot drevesni tolmač)
+    public static final int TRAP = 15;
+
+    // d a b         d <- a op b
+    public static final int ADD = 16;
+    public static final int SUB = 17;
+    public static final int MUL = 18;
+    public static final int DIV = 19;
+    public static final int AND = 20;
+    public static final int OR  = 21;
+    public static final int EQ  = 22;
+    public static final int NEQ = 23;
+    public static final int LT  = 24;
+    public static final int GT  = 25;
+    public static final int LEQ = 26;
+    public static final int GEQ = 27;
+
+    // d a imm       d <- a op imm
+    static final int IMMEDIATE = 16;
+    public static final int ADDI = ADD + IMMEDIATE;
+    public static final int SUBI = SUB + IMMEDIATE;
+    public static final int MULI = MUL + IMMEDIATE;
+    public static final int DIVI = DIV + IMMEDIATE;
+    public static final int ANDI = AND + IMMEDIATE;
+    public static final int ORI  = OR + IMMEDIATE;
+    public static final int EQI  = EQ + IMMEDIATE;
+    public static final int NEQI = NEQ + IMMEDIATE;
+    public static final int LTI  = LT + IMMEDIATE;
+    public static final int GTI  = GT + IMMEDIATE;
+    public static final int LEQI = LEQ + IMMEDIATE;
+    public static final int GEQI = GEQ + IMMEDIATE;
+
+    // a b then else    skoči na then, če velja a op b (primerjava in pogojni skok v enem ukazu)
+    static final int BRANCH = 48 - EQ;
+    public static final int BEQ  = EQ + BRANCH;
+    public static final int BNEQ = NEQ + BRANCH;
+    public static final int BLT  = LT + BRANCH;
+    public static final int BGT  = GT + BRANCH;
+    public static final int BLEQ = LEQ + BRANCH;
+    public static final int BGEQ = GEQ + BRANCH;
+
+    // a imm then else
+    public static final int BEQI  = BEQ + IMMEDIATE;
+    public static final int BNEQI = BNEQ + IMMEDIATE;
+    public static final int BLTI  = BLT + IMMEDIATE;
+    public static final int BGTI  = BGT + IMMEDIATE;
+    public static final int BLEQI = BLEQ + IMMEDIATE;
+    public static final int BGEQI = BGEQ + IMMEDIATE;
+}
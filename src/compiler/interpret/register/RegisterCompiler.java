@@ -0,0 +1,444 @@
+/**
+ * @ Author: turk
+ * @ Description: Prevajanje linearizirane vmesne kode v ukaze registrskega stroja.
+ */
+
+package compiler.interpret.register;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import common.Constants;
+import compiler.frm.Frame;
+import compiler.gen.Memory;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+/**
+ * Linearizirani stavki se skoraj neposredno preslikajo v ukaze s tremi naslovi:
+ * začasne spremenljivke postanejo registri, vmesne rezultate gnezdenih izrazov
+ * pa shranimo v pomožne registre, ki jih ponovno uporabimo v vsakem stavku.
+ *
+ * Registra 0 in 1 hranita FP in SP, ki se med izvajanjem funkcije ne spreminjata.
+ * Konstantne odmike naslovov in konstantne desne operande vpišemo kar v ukaz.
+ */
+public class RegisterCompiler {
+    static final int FP = 0;
+    static final int SP = 1;
+
+    /**
+     * Pomnilnik z naslovi imenovanih lokacij.
+     */
+    private final Memory memory;
+
+    /**
+     * Preslikava iz label funkcij v indekse v tabeli funkcij.
+     */
+    private final Map<Frame.Label, Integer> functionIndices = new HashMap<>();
+
+    private final List<RegisterFunction> functions = new ArrayList<>();
+
+    /**
+     * Ali indeksiranje tabel prevedemo v en ukaz?
+     */
+    private final boolean superinstructions;
+
+    // ----------- stanje prevajanja funkcije -----------
+
+    private int[] code;
+    private int length;
+    private Map<Frame.Temp, Integer> temps;
+    private Map<Frame.Label, Integer> labels;
+
+    /**
+     * Mesta operandov skokov, ki jih moramo popraviti, ko poznamo položaje label.
+     */
+    private Map<Integer, Frame.Label> jumpOperands;
+
+    /**
+     * Pomožni registri trenutnega stavka so oštevilčeni od `2 + temps.size()` naprej.
+     */
+    private int scratch;
+    private int maxScratch;
+
+    public RegisterCompiler(Memory memory) {
+        this(memory, 0);
+    }
+
+    /**
+     * Pri stopnji optimizacije 1 ali več indeksiranje tabel `baza + i * k`
+     * prevedemo v ukaza `LOADX` in `STOREX`.
+     */
+    public RegisterCompiler(Memory memory, int optimizationLevel) {
+        requireNonNull(memory);
+        this.memory = memory;
+        this.superinstructions = optimizationLevel >= 1;
+    }
+
+    /**
+     * Prevede linearizirane fragmente kode.
+     */
+    public RegisterProgram compile(List<CodeChunk> chunks) {
+        requireNonNull(chunks);
+        Optional<RegisterFunction> main = Optional.empty();
+        for (var chunk : chunks) {
+            var function = new RegisterFunction(chunk.frame);
+            functionIndices.put(chunk.frame.label, functions.size());
+            functions.add(function);
+            if (function.isMain && main.isEmpty()) {
+                main = Optional.of(function);
+            }
+        }
+        for (int i = 0; i < chunks.size(); i++) {
+            compile(chunks.get(i), functions.get(i));
+        }
+        return new RegisterProgram(functions, main);
+    }
+
+    private void compile(CodeChunk chunk, RegisterFunction function) {
+        code = new int[64];
+        length = 0;
+        temps = new HashMap<>();
+        labels = new HashMap<>();
+        jumpOperands = new HashMap<>();
+        maxScratch = 0;
+
+        if (!(chunk.code instanceof SeqStmt seq)) {
+            throw new RuntimeException("Linearize IR!");
+        }
+        // Začasne spremenljivke dobijo registre pred pomožnimi registri.
+        for (var stmt : seq.statements) {
+            collectTemps(stmt);
+        }
+        for (var stmt : seq.statements) {
+            scratch = 0;
+            compile(stmt);
+        }
+        emit(Opcode.RET);
+
+        for (var operand : jumpOperands.entrySet()) {
+            var target = labels.get(operand.getValue());
+            if (target == null) {
+                throw new IllegalArgumentException("Unknown label " + operand.getValue() + "!");
+            }
+            code[operand.getKey()] = target;
+        }
+
+        function.code = Arrays.copyOf(code, length);
+        function.registers = 2 + temps.size() + maxScratch;
+    }
+
+    // ----------- stavki -----------
+
+    private void compile(IRStmt stmt) {
+        if (stmt instanceof CJumpStmt cjump) {
+            compile(cjump);
+        } else if (stmt instanceof ExpStmt exp) {
+            if (!(exp.expr instanceof TempExpr || exp.expr instanceof ConstantExpr || exp.expr instanceof NameExpr)) {
+                compileInto(exp.expr, nextScratch());
+            }
+        } else if (stmt instanceof JumpStmt jump) {
+            emit(Opcode.JUMP);
+            jumpTo(jump.label);
+        } else if (stmt instanceof LabelStmt label) {
+            labels.putIfAbsent(label.label, length);
+        } else if (stmt instanceof MoveStmt move) {
+            compile(move);
+        } else {
+            throw new RuntimeException("Cannot execute this statement!");
+        }
+    }
+
+    private void compile(CJumpStmt cjump) {
+        if (cjump.condition instanceof BinopExpr binop && isComparison(binop.op)) {
+            var lhs = binop.lhs;
+            var rhs = binop.rhs;
+            var op = binop.op;
+            if (lhs instanceof ConstantExpr && !(rhs instanceof ConstantExpr)) {
+                lhs = binop.rhs;
+                rhs = binop.lhs;
+                op = swap(op);
+            }
+            int a = operand(lhs);
+            if (rhs instanceof ConstantExpr constant) {
+                emit(opcode(op) + Opcode.BRANCH + Opcode.IMMEDIATE, a, constant.constant);
+            } else {
+                int b = operand(rhs);
+                emit(opcode(op) + Opcode.BRANCH, a, b);
+            }
+        } else {
+            int c = operand(cjump.condition);
+            emit(Opcode.CJUMP, c);
+        }
+        jumpTo(cjump.thenLabel);
+        jumpTo(cjump.elseLabel);
+    }
+
+    private void compile(MoveStmt move) {
+        if (move.dst instanceof TempExpr tempExpr) {
+            compileInto(move.src, temp(tempExpr.temp));
+        } else if (move.dst instanceof MemExpr memExpr && isIndex(memExpr.expr)) {
+            var index = (BinopExpr) memExpr.expr;
+            var scaled = (BinopExpr) index.rhs;
+            int base = operand(index.lhs);
+            int i = operand(scaled.lhs);
+            int value = operand(move.src);
+            emit(Opcode.STOREX, base, i, ((ConstantExpr) scaled.rhs).constant, value);
+        } else if (move.dst instanceof MemExpr memExpr) {
+            // najprej naslov, nato vrednost
+            var address = address(memExpr.expr);
+            int value = operand(move.src);
+            emit(Opcode.STORE, address[0], address[1], value);
+        }
+    }
+
+    // ----------- izrazi -----------
+
+    /**
+     * Register z vrednostjo izraza.
+     * Začasne spremenljivke, FP in SP ne potrebujejo novega registra.
+     */
+    private int operand(IRExpr expr) {
+        if (expr instanceof TempExpr tempExpr) {
+            return temp(tempExpr.temp);
+        } else if (expr instanceof NameExpr name && name.register == NameExpr.Register.FP) {
+            return FP;
+        } else if (expr instanceof NameExpr name && name.register == NameExpr.Register.SP) {
+            return SP;
+        }
+        int register = nextScratch();
+        compileInto(expr, register);
+        return register;
+    }
+
+    /**
+     * Izračuna vrednost izraza v podan register.
+     * Register zapišemo šele z zadnjim ukazom, zato je lahko tudi operand izraza.
+     */
+    private void compileInto(IRExpr expr, int register) {
+        if (expr instanceof BinopExpr binopExpr) {
+            compileInto(binopExpr, register);
+        } else if (expr instanceof CallExpr callExpr) {
+            compileInto(callExpr, register);
+        } else if (expr instanceof ConstantExpr constantExpr) {
+            emit(Opcode.MOVI, register, constantExpr.constant);
+        } else if (expr instanceof EseqExpr) {
+            throw new RuntimeException("Cannot execute ESEQ; linearize IRCode!");
+        } else if (expr instanceof MemExpr memExpr) {
+            if (isIndex(memExpr.expr)) {
+                var index = (BinopExpr) memExpr.expr;
+                var scaled = (BinopExpr) index.rhs;
+                int base = operand(index.lhs);
+                int i = operand(scaled.lhs);
+                emit(Opcode.LOADX, register, base, i, ((ConstantExpr) scaled.rhs).constant);
+            } else {
+                var address = address(memExpr.expr);
+                emit(Opcode.LOAD, register, address[0], address[1]);
+            }
+        } else if (expr instanceof NameExpr nameExpr) {
+            if (nameExpr.isRegister()) {
+                emit(Opcode.MOV, register, operand(nameExpr));
+            } else {
+                emit(Opcode.MOVI, register, memory.address(nameExpr.label));
+            }
+        } else if (expr instanceof TempExpr tempExpr) {
+            emit(Opcode.MOV, register, temp(tempExpr.temp));
+        } else {
+            throw new IllegalArgumentException("Unknown expr type");
+        }
+    }
+
+    private void compileInto(BinopExpr binop, int register) {
+        var lhs = binop.lhs;
+        var rhs = binop.rhs;
+        var op = binop.op;
+        if (lhs instanceof ConstantExpr && !(rhs instanceof ConstantExpr) && isCommutative(op)) {
+            lhs = binop.rhs;
+            rhs = binop.lhs;
+            op = swap(op);
+        }
+        if (opcode(op) == Opcode.TRAP) {
+            // Operandi linearizirane kode nimajo stranskih učinkov, zato jih ne izračunamo.
+            emit(Opcode.TRAP);
+            return;
+        }
+        int a = operand(lhs);
+        if (rhs instanceof ConstantExpr constant) {
+            emit(opcode(op) + Opcode.IMMEDIATE, register, a, constant.constant);
+        } else {
+            int b = operand(rhs);
+            emit(opcode(op), register, a, b);
+        }
+    }
+
+    private void compileInto(CallExpr call, int register) {
+        var name = call.label.name;
+        if (name.equals(Constants.printIntLabel)) {
+            stdlib(call, 2, Opcode.PRINT_INT, register);
+        } else if (name.equals(Constants.printStringLabel)) {
+            stdlib(call, 2, Opcode.PRINT_STR, register);
+        } else if (name.equals(Constants.printLogLabel)) {
+            stdlib(call, 2, Opcode.PRINT_LOG, register);
+        } else if (name.equals(Constants.randIntLabel)) {
+            stdlib(call, 3, Opcode.RAND_INT, register);
+        } else if (name.equals(Constants.seedLabel)) {
+            stdlib(call, 2, Opcode.SEED, register);
+        } else if (functionIndices.containsKey(call.label)) {
+            var args = new int[call.args.size()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = operand(call.args.get(i));
+            }
+            emit(Opcode.CALL, register, functionIndices.get(call.label), args.length);
+            for (var arg : args) {
+                emit(arg);
+            }
+        } else {
+            throw new RuntimeException("Only functions can be called!");
+        }
+    }
+
+    /**
+     * Klic funkcije iz 'standardne knjižnice'.
+     * Prvi argument (statična povezava) ne vpliva na rezultat, zato ga ne izračunamo.
+     */
+    private void stdlib(CallExpr call, int argumentCount, int opcode, int register) {
+        if (call.args.size() != argumentCount) { throw new RuntimeException("Invalid argument count!"); }
+        var args = new int[argumentCount - 1];
+        for (int i = 1; i < argumentCount; i++) {
+            args[i - 1] = operand(call.args.get(i));
+        }
+        emit(opcode, register);
+        for (var arg : args) {
+            emit(arg);
+        }
+    }
+
+    /**
+     * Naslov kot par (register, odmik).
+     */
+    private int[] address(IRExpr expr) {
+        if (expr instanceof BinopExpr binop && binop.rhs instanceof ConstantExpr constant) {
+            if (binop.op == BinopExpr.Operator.ADD) {
+                return new int[] { operand(binop.lhs), constant.constant };
+            } else if (binop.op == BinopExpr.Operator.SUB) {
+                return new int[] { operand(binop.lhs), -constant.constant };
+            }
+        }
+        return new int[] { operand(expr), 0 };
+    }
+
+    // ----------- pomožne funkcije -----------
+
+    /**
+     * Ali je naslov oblike `baza + i * k`?
+     */
+    private boolean isIndex(IRExpr address) {
+        return superinstructions
+            && address instanceof BinopExpr binop && binop.op == BinopExpr.Operator.ADD
+            && binop.rhs instanceof BinopExpr mul && mul.op == BinopExpr.Operator.MUL
+            && mul.rhs instanceof ConstantExpr;
+    }
+
+    private void collectTemps(IRStmt stmt) {
+        if (stmt instanceof CJumpStmt cjump) {
+            collectTemps(cjump.condition);
+        } else if (stmt instanceof ExpStmt exp) {
+            collectTemps(exp.expr);
+        } else if (stmt instanceof MoveStmt move) {
+            collectTemps(move.dst);
+            collectTemps(move.src);
+        }
+    }
+
+    private void collectTemps(IRExpr expr) {
+        if (expr instanceof TempExpr tempExpr) {
+            temp(tempExpr.temp);
+        } else if (expr instanceof BinopExpr binop) {
+            collectTemps(binop.lhs);
+            collectTemps(binop.rhs);
+        } else if (expr instanceof MemExpr mem) {
+            collectTemps(mem.expr);
+        } else if (expr instanceof CallExpr call) {
+            for (var arg : call.args) {
+                collectTemps(arg);
+            }
+        }
+    }
+
+    private int temp(Frame.Temp temp) {
+        return 2 + temps.computeIfAbsent(temp, __ -> temps.size());
+    }
+
+    private int nextScratch() {
+        scratch++;
+        maxScratch = Math.max(maxScratch, scratch);
+        return 2 + temps.size() + scratch - 1;
+    }
+
+    private boolean isComparison(BinopExpr.Operator op) {
+        switch (op) {
+            case EQ: case NEQ: case LT: case GT: case LEQ: case GEQ:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean isCommutative(BinopExpr.Operator op) {
+        return op == BinopExpr.Operator.ADD || op == BinopExpr.Operator.MUL
+            || op == BinopExpr.Operator.AND || op == BinopExpr.Operator.OR
+            || isComparison(op);
+    }
+
+    /**
+     * Operator, pri katerem zamenjamo vrstni red operandov.
+     */
+    private BinopExpr.Operator swap(BinopExpr.Operator op) {
+        switch (op) {
+            case LT: return BinopExpr.Operator.GT;
+            case GT: return BinopExpr.Operator.LT;
+            case LEQ: return BinopExpr.Operator.GEQ;
+            case GEQ: return BinopExpr.Operator.LEQ;
+            default: return op;
+        }
+    }
+
+    private int opcode(BinopExpr.Operator op) {
+        switch (op) {
+            case ADD: return Opcode.ADD;
+            case SUB: return Opcode.SUB;
+            case MUL: return Opcode.MUL;
+            case DIV: return Opcode.DIV;
+            case AND: return Opcode.AND;
+            case OR: return Opcode.OR;
+            case EQ: return Opcode.EQ;
+            case NEQ: return Opcode.NEQ;
+            case LT: return Opcode.LT;
+            case GT: return Opcode.GT;
+            case LEQ: return Opcode.LEQ;
+            case GEQ: return Opcode.GEQ;
+            default: return Opcode.TRAP;
+        }
+    }
+
+    private void jumpTo(Frame.Label label) {
+        jumpOperands.put(length, label);
+        emit(-1);
+    }
+
+    private void emit(int... values) {
+        if (length + values.length > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, length + values.length));
+        }
+        for (var value : values) {
+            code[length++] = value;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * @ Author: turk
+ * @ Description: Prevedena funkcija registrskega navideznega stroja.
+ */
+
+package compiler.interpret.register;
+
+import static common.RequireNonNull.requireNonNull;
+
+import compiler.frm.Frame;
+
+public class RegisterFunction {
+    /**
+     * Klicni zapis funkcije.
+     */
+    public final Frame frame;
+
+    /**
+     * Zaporedje ukazov (glej `Opcode`).
+     */
+    int[] code;
+
+    /**
+     * Število registrov: FP, SP, začasne spremenljivke in vmesni rezultati.
+     */
+    int registers;
+
+    /**
+     * Velikost klicnega zapisa.
+     */
+    final int frameSize;
+
+    /**
+     * Odmik starega FP od FP.
+     */
+    final int oldFPOffset;
+
+    /**
+     * Ali je funkcija `main`?
+     */
+    final boolean isMain;
+
+    RegisterFunction(Frame frame) {
+        requireNonNull(frame);
+        this.frame = frame;
+        this.frameSize = frame.size();
+        this.oldFPOffset = frame.oldFPOffset();
+        this.isMain = frame.label.name.equals("main");
+    }
+
+    /**
+     * Število ukazov in operandov.
+     */
+    public int codeSize() {
+        return code.length;
+    }
+
+    @Override
+    public String toString() {
+        return frame.label.name;
+    }
+}
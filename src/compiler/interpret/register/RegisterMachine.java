@@ -0,0 +1,252 @@
+/**
+ * @ Author: turk
+ * @ Description: Registrski navidezni stroj.
+ */
+
+package compiler.interpret.register;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.PrintStream;
+import java.util.Optional;
+import java.util.Random;
+
+import common.Constants;
+import common.Report;
+import compiler.gen.Memory;
+import compiler.interpret.WordMemory;
+
+/**
+ * Izvaja programe, ki jih prevede `RegisterCompiler`.
+ *
+ * Klicni dogovor, razporeditev pomnilnika in izpis so enaki kot v
+ * `compiler.interpret.Interpreter`.
+ */
+public class RegisterMachine {
+    /**
+     * Pomnilnik navideznega stroja.
+     */
+    private final WordMemory memory;
+
+    /**
+     * Pomnilnik prevajalnika - iz njega beremo nize.
+     */
+    private final Memory strings;
+
+    /**
+     * Izhodni tok, kamor izpisujemo rezultate izvajanja programa.
+     */
+    private final Optional<PrintStream> outputStream;
+
+    /**
+     * Generator naključnih števil.
+     */
+    private Random random;
+
+    /**
+     * Skladovni kazalec (kaže na dno sklada).
+     */
+    private int stackPointer;
+
+    /**
+     * Klicni kazalec (kaže na vrh aktivnega klicnega zapisa).
+     */
+    private int framePointer;
+
+    /**
+     * Tabela funkcij programa.
+     */
+    private RegisterFunction[] functions;
+
+    /**
+     * Število izvedenih ukazov, indeksirano z operacijsko kodo.
+     * `null`, če ukazov ne štejemo.
+     */
+    private final long[] executed;
+
+    public RegisterMachine(Memory memory, Optional<PrintStream> outputStream) {
+        this(memory, outputStream, false);
+    }
+
+    public RegisterMachine(Memory memory, Optional<PrintStream> outputStream, boolean countInstructions) {
+        requireNonNull(memory, outputStream);
+        this.memory = new WordMemory(memory.size);
+        this.strings = memory;
+        this.outputStream = outputStream;
+        this.stackPointer = memory.size - Constants.WordSize;
+        this.framePointer = memory.size - Constants.WordSize;
+        this.random = new Random();
+        this.executed = countInstructions ? new long[Opcode.BGEQI + 1] : null;
+    }
+
+    // --------- izvajanje navideznega stroja ----------
+
+    public void interpret(RegisterProgram program) {
+        requireNonNull(program);
+        if (program.main.isEmpty()) {
+            return;
+        }
+        var main = program.main.get();
+        this.functions = program.functions.toArray(new RegisterFunction[0]);
+
+        memory.store(framePointer + Constants.WordSize, 999); // argument v funkcijo main
+        memory.store(framePointer - main.oldFPOffset, framePointer); // oldFP
+        memory.store(framePointer, framePointer); // trenuten FP naj kaže sam nase, da lahko dostopamo do argumentov višje
+
+        execute(main);
+    }
+
+    /**
+     * Število izvedenih ukazov po operacijskih kodah, če jih štejemo.
+     */
+    public Optional<long[]> executedInstructions() {
+        return Optional.ofNullable(executed);
+    }
+
+    private void execute(RegisterFunction function) {
+        if (!function.isMain) {
+            this.framePointer = this.stackPointer;
+        }
+        this.stackPointer -= function.frameSize;
+
+        final int[] code = function.code;
+        final int[] r = new int[function.registers];
+        r[RegisterCompiler.FP] = framePointer;
+        r[RegisterCompiler.SP] = stackPointer;
+        int pc = 0;
+
+        loop:
+        while (true) {
+            if (executed != null) {
+                executed[code[pc]]++;
+            }
+            switch (code[pc]) {
+                case Opcode.MOVI:
+                    r[code[pc + 1]] = code[pc + 2];
+                    pc += 3;
+                    break;
+                case Opcode.MOV:
+                    r[code[pc + 1]] = r[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Opcode.LOAD:
+                    r[code[pc + 1]] = memory.loadOrAddress(r[code[pc + 2]] + code[pc + 3]);
+                    pc += 4;
+                    break;
+                case Opcode.STORE:
+                    memory.store(r[code[pc + 1]] + code[pc + 2], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.LOADX:
+                    r[code[pc + 1]] = memory.loadOrAddress(r[code[pc + 2]] + r[code[pc + 3]] * code[pc + 4]);
+                    pc += 5;
+                    break;
+                case Opcode.STOREX:
+                    memory.store(r[code[pc + 1]] + r[code[pc + 2]] * code[pc + 3], r[code[pc + 4]]);
+                    pc += 5;
+                    break;
+                case Opcode.JUMP:
+                    pc = code[pc + 1];
+                    break;
+                case Opcode.CJUMP:
+                    pc = r[code[pc + 1]] == 1 ? code[pc + 2] : code[pc + 3];
+                    break;
+                case Opcode.CALL: {
+                    var callee = functions[code[pc + 2]];
+                    int argc = code[pc + 3];
+                    // Zapiši argumente v pomnilnik
+                    for (int i = 0; i < argc; i++) {
+                        memory.store(stackPointer + i * Constants.WordSize, r[code[pc + 4 + i]]);
+                    }
+                    // Nastavi old FP
+                    memory.store(stackPointer - callee.oldFPOffset, framePointer);
+                    execute(callee);
+                    r[code[pc + 1]] = memory.load(stackPointer);
+                    pc += 4 + argc;
+                    break;
+                }
+                case Opcode.RET:
+                    break loop;
+
+                case Opcode.PRINT_INT: {
+                    var value = r[code[pc + 2]];
+                    outputStream.ifPresent(stream -> stream.println(value));
+                    r[code[pc + 1]] = 0;
+                    pc += 3;
+                    break;
+                }
+                case Opcode.PRINT_STR: {
+                    var res = strings.ldM(r[code[pc + 2]]);
+                    outputStream.ifPresent(stream -> stream.println("\"" + res + "\""));
+                    r[code[pc + 1]] = 0;
+                    pc += 3;
+                    break;
+                }
+                case Opcode.PRINT_LOG: {
+                    var value = r[code[pc + 2]] != 0;
+                    outputStream.ifPresent(stream -> stream.println(value));
+                    r[code[pc + 1]] = 0;
+                    pc += 3;
+                    break;
+                }
+                case Opcode.RAND_INT:
+                    r[code[pc + 1]] = random.nextInt(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.SEED:
+                    random = new Random(r[code[pc + 2]]);
+                    r[code[pc + 1]] = 0;
+                    pc += 3;
+                    break;
+
+                case Opcode.ADD: r[code[pc + 1]] = r[code[pc + 2]] + r[code[pc + 3]]; pc += 4; break;
+                case Opcode.SUB: r[code[pc + 1]] = r[code[pc + 2]] - r[code[pc + 3]]; pc += 4; break;
+                case Opcode.MUL: r[code[pc + 1]] = r[code[pc + 2]] * r[code[pc + 3]]; pc += 4; break;
+                case Opcode.DIV: r[code[pc + 1]] = r[code[pc + 2]] / r[code[pc + 3]]; pc += 4; break;
+                case Opcode.AND: r[code[pc + 1]] = r[code[pc + 2]] & r[code[pc + 3]]; pc += 4; break;
+                case Opcode.OR:  r[code[pc + 1]] = r[code[pc + 2]] | r[code[pc + 3]]; pc += 4; break;
+                case Opcode.EQ:  r[code[pc + 1]] = r[code[pc + 2]] == r[code[pc + 3]] ? 1 : 0; pc += 4; break;
+                case Opcode.NEQ: r[code[pc + 1]] = r[code[pc + 2]] != r[code[pc + 3]] ? 1 : 0; pc += 4; break;
+                case Opcode.LT:  r[code[pc + 1]] = r[code[pc + 2]] < r[code[pc + 3]] ? 1 : 0; pc += 4; break;
+                case Opcode.GT:  r[code[pc + 1]] = r[code[pc + 2]] > r[code[pc + 3]] ? 1 : 0; pc += 4; break;
+                case Opcode.LEQ: r[code[pc + 1]] = r[code[pc + 2]] <= r[code[pc + 3]] ? 1 : 0; pc += 4; break;
+                case Opcode.GEQ: r[code[pc + 1]] = r[code[pc + 2]] >= r[code[pc + 3]] ? 1 : 0; pc += 4; break;
+
+                case Opcode.ADDI: r[code[pc + 1]] = r[code[pc + 2]] + code[pc + 3]; pc += 4; break;
+                case Opcode.SUBI: r[code[pc + 1]] = r[code[pc + 2]] - code[pc + 3]; pc += 4; break;
+                case Opcode.MULI: r[code[pc + 1]] = r[code[pc + 2]] * code[pc + 3]; pc += 4; break;
+                case Opcode.DIVI: r[code[pc + 1]] = r[code[pc + 2]] / code[pc + 3]; pc += 4; break;
+                case Opcode.ANDI: r[code[pc + 1]] = r[code[pc + 2]] & code[pc + 3]; pc += 4; break;
+                case Opcode.ORI:  r[code[pc + 1]] = r[code[pc + 2]] | code[pc + 3]; pc += 4; break;
+                case Opcode.EQI:  r[code[pc + 1]] = r[code[pc + 2]] == code[pc + 3] ? 1 : 0; pc += 4; break;
+                case Opcode.NEQI: r[code[pc + 1]] = r[code[pc + 2]] != code[pc + 3] ? 1 : 0; pc += 4; break;
+                case Opcode.LTI:  r[code[pc + 1]] = r[code[pc + 2]] < code[pc + 3] ? 1 : 0; pc += 4; break;
+                case Opcode.GTI:  r[code[pc + 1]] = r[code[pc + 2]] > code[pc + 3] ? 1 : 0; pc += 4; break;
+                case Opcode.LEQI: r[code[pc + 1]] = r[code[pc + 2]] <= code[pc + 3] ? 1 : 0; pc += 4; break;
+                case Opcode.GEQI: r[code[pc + 1]] = r[code[pc + 2]] >= code[pc + 3] ? 1 : 0; pc += 4; break;
+
+                case Opcode.BEQ:  pc = r[code[pc + 1]] == r[code[pc + 2]] ? code[pc + 3] : code[pc + 4]; break;
+                case Opcode.BNEQ: pc = r[code[pc + 1]] != r[code[pc + 2]] ? code[pc + 3] : code[pc + 4]; break;
+                case Opcode.BLT:  pc = r[code[pc + 1]] < r[code[pc + 2]] ? code[pc + 3] : code[pc + 4]; break;
+                case Opcode.BGT:  pc = r[code[pc + 1]] > r[code[pc + 2]] ? code[pc + 3] : code[pc + 4]; break;
+                case Opcode.BLEQ: pc = r[code[pc + 1]] <= r[code[pc + 2]] ? code[pc + 3] : code[pc + 4]; break;
+                case Opcode.BGEQ: pc = r[code[pc + 1]] >= r[code[pc + 2]] ? code[pc + 3] : code[pc + 4]; break;
+
+                case Opcode.BEQI:  pc = r[code[pc + 1]] == code[pc + 2] ? code[pc + 3] : code[pc + 4]; break;
+                case Opcode.BNEQI: pc = r[code[pc + 1]] != code[pc + 2] ? code[pc + 3] : code[pc + 4]; break;
+                case Opcode.BLTI:  pc = r[code[pc + 1]] < code[pc + 2] ? code[pc + 3] : code[pc + 4]; break;
+                case Opcode.BGTI:  pc = r[code[pc + 1]] > code[pc + 2] ? code[pc + 3] : code[pc + 4]; break;
+                case Opcode.BLEQI: pc = r[code[pc + 1]] <= code[pc + 2] ? code[pc + 3] : code[pc + 4]; break;
+                case Opcode.BGEQI: pc = r[code[pc + 1]] >= code[pc + 2] ? code[pc + 3] : code[pc + 4]; break;
+
+                case Opcode.TRAP: Report.error("Neznan operator!"); break;
+
+                default:
+                    throw new IllegalStateException("Unknown opcode " + code[pc] + "!");
+            }
+        }
+
+        this.stackPointer = this.framePointer;
+        this.framePointer = memory.load(this.stackPointer - function.oldFPOffset);
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * @ Author: turk
+ * @ Description: Preveden program registrskega navideznega stroja.
+ */
+
+package compiler.interpret.register;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.List;
+import java.util.Optional;
+
+public class RegisterProgram {
+    /**
+     * Tabela funkcij - ukaz `CALL` se nanjo sklicuje z indeksom.
+     */
+    public final List<RegisterFunction> functions;
+
+    /**
+     * Funkcija `main`, če obstaja.
+     */
+    public final Optional<RegisterFunction> main;
+
+    RegisterProgram(List<RegisterFunction> functions, Optional<RegisterFunction> main) {
+        requireNonNull(functions, main);
+        this.functions = functions;
+        this.main = main;
+    }
+}
@@ -164,11 +164,11 @@ public class IRCodeGenerator implements Visitor {
                 Literal rNode = (Literal) binary.right;
             } else {
                 IRExpr rhs = (IRExpr) imcCode.valueFor(binary.right).get();
-                if (lhs instanceof MemExpr mem) {
-                    MoveStmt mov = new MoveStmt(mem, rhs);
+                if (lhs instanceof MemExpr || lhs instanceof TempExpr) {
+                    MoveStmt mov = new MoveStmt(lhs, rhs);
                     imcCode.store(mov, binary);
                 } else {
-                    Report.error(binary.position, "Pričakovan MemExpr na levi strani assignmenta!");
+                    Report.error(binary.position, "Pričakovan MemExpr ali TempExpr na levi strani assignmenta!");
                 }
             }
 
@@ -380,10 +380,9 @@ public class IRCodeGenerator implements Visitor {
         if (a instanceof Access.Global g) {
             MemExpr mem = new MemExpr(new NameExpr(g.label));
 <<<<<<< HEAD
-            if (v instanceof VarDef varDef) {
-                Type type = types.valueFor(varDef).get();
-                if (type.isAtom())
-                    mem = new MemExpr(mem);
+            if (types.valueFor(v).get().isArray()) { // Globalni array - naslov labele
+                imcCode.store(mem.expr, name);
+                return;
             }
 =======
 >>>>>>> repo7/main
@@ -447,6 +446,8 @@ public class IRCodeGenerator implements Visitor {
             );
             MemExpr mem = new MemExpr(add);
             imcCode.store(mem, name);
+        } else if (a instanceof Access.Register r) {
+            imcCode.store(new TempExpr(r.temp), name);
         }
 
         // TODO: drug SL
@@ -648,13 +649,30 @@ public class IRCodeGenerator implements Visitor {
         // Pričakujemo expression
         IRNode node = this.imcCode.valueFor(funDef.body).get();
 
-        Chunk chunk;
+        IRStmt code;
         if (node instanceof IRExpr e) {
-            chunk = new Chunk.CodeChunk(frame, new MoveStmt(new MemExpr(NameExpr.FP()), e));
+            code = new MoveStmt(new MemExpr(NameExpr.FP()), e);
         } else {
-            chunk = new Chunk.CodeChunk(frame, (IRStmt) node);
+            code = (IRStmt) node;
         }
-        this.chunks.add(chunk);
+
+        // Parametre, ki jih hranimo v začasnih spremenljivkah, preberemo iz klicnega zapisa
+        List<IRStmt> prologue = new ArrayList<>();
+        for (Parameter parameter : funDef.parameters) {
+            if (this.accesses.valueFor(parameter).orElse(null) instanceof Access.Register r && r.parameter.isPresent()) {
+                BinopExpr address = new BinopExpr(
+                        NameExpr.FP(),
+                        new ConstantExpr(r.parameter.get().offset),
+                        BinopExpr.Operator.ADD
+                );
+                prologue.add(new MoveStmt(new TempExpr(r.temp), new MemExpr(address)));
+            }
+        }
+        if (!prologue.isEmpty()) {
+            prologue.add(code);
+            code = new SeqStmt(prologue);
+        }
+        this.chunks.add(new Chunk.CodeChunk(frame, code));
     }
 
     @Override
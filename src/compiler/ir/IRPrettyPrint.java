@@ -5,13 +5,15 @@
 
 package compiler.ir;
 
-import static common.StringUtil.*;
 import static common.RequireNonNull.requireNonNull;
 
-import java.io.PrintStream;
 import java.util.List;
 
+import common.DumpWriter;
 import common.VoidOperator;
+import compiler.ir.cfg.BasicBlock;
+import compiler.ir.cfg.ControlFlowGraph;
+import compiler.ir.cfg.DominatorTree;
 import compiler.ir.chunk.Chunk;
 import compiler.ir.code.IRNode;
 import compiler.ir.code.expr.*;
@@ -21,7 +23,7 @@ public class IRPrettyPrint {
     /**
      * Izhodni tok, kamor se izpiše drevo vmesne kode.
      */
-    private final PrintStream outputStream;
+    private final DumpWriter outputStream;
 
     /**
      * Za koliko naj se indentacija poveča pri gnezdenju.
@@ -33,13 +35,13 @@ public class IRPrettyPrint {
      */
     private int indent = 0;
 
-    public IRPrettyPrint(PrintStream outputStream, int increaseIndentBy) {
+    public IRPrettyPrint(DumpWriter outputStream, int increaseIndentBy) {
         requireNonNull(outputStream);
         this.outputStream = outputStream;
         this.increaseIndentBy = increaseIndentBy;
     }
 
-    public IRPrettyPrint(PrintStream outputStream) {
+    public IRPrettyPrint(DumpWriter outputStream) {
         requireNonNull(outputStream);
         this.outputStream = outputStream;
         this.increaseIndentBy = 4;
@@ -74,6 +76,25 @@ public class IRPrettyPrint {
         println(chunk.access.toString(), ": ");
     }
 
+    public void print(ControlFlowGraph cfg) {
+        println(cfg.frame.toString());
+        var dominators = cfg.dominators();
+        var reachable = cfg.reachable();
+        println("RPO: ", cfg.reversePostOrder().toString());
+        cfg.blocks.forEach(block -> print(block, dominators, reachable[block.id]));
+    }
+
+    private void print(BasicBlock block, DominatorTree dominators, boolean reachable) {
+        println("BLOCK ", block.toString(),
+            ": pred=", block.predecessors().toString(),
+            ",succ=", block.successors().toString(),
+            ",idom=", dominators.immediateDominator(block).map(BasicBlock::toString).orElse("-"),
+            reachable ? "" : " (unreachable)");
+        inNewScope(() -> {
+            block.statements.forEach(stmt -> print(stmt));
+        });
+    }
+
     public void print(IRNode node) {
         if (node instanceof IRStmt stmt) {
             print(stmt);
@@ -203,7 +224,7 @@ public class IRPrettyPrint {
     // --------------------------------------
 
     private void println(String... args) {
-        outputStream.print(indented("", indent));
+        outputStream.indent(indent);
         for (var arg : args) {
             outputStream.print(arg);
         }
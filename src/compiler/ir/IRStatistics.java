@@ -0,0 +1,113 @@
+/**
+ * @ Author: turk
+ * @ Description: Štetje vozlišč in začasnih spremenljivk vmesne kode.
+ */
+
+package compiler.ir;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import compiler.frm.Frame;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+public class IRStatistics {
+    private IRStatistics() {}
+
+    /**
+     * Število vozlišč vmesne kode v vseh fragmentih kode.
+     */
+    public static long nodes(List<? extends Chunk> chunks) {
+        requireNonNull(chunks);
+        long count = 0;
+        for (var chunk : chunks) {
+            if (chunk instanceof CodeChunk code) {
+                count += nodes(code.code);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Število različnih začasnih spremenljivk v vseh fragmentih kode.
+     */
+    public static long temps(List<? extends Chunk> chunks) {
+        requireNonNull(chunks);
+        Set<Frame.Temp> temps = new HashSet<>();
+        for (var chunk : chunks) {
+            if (chunk instanceof CodeChunk code) {
+                collectTemps(code.code, temps);
+            }
+        }
+        return temps.size();
+    }
+
+    private static long nodes(IRStmt stmt) {
+        if (stmt instanceof CJumpStmt cjump) {
+            return 1 + nodes(cjump.condition);
+        } else if (stmt instanceof ExpStmt exp) {
+            return 1 + nodes(exp.expr);
+        } else if (stmt instanceof MoveStmt move) {
+            return 1 + nodes(move.dst) + nodes(move.src);
+        } else if (stmt instanceof SeqStmt seq) {
+            long count = 1;
+            for (var s : seq.statements) {
+                count += nodes(s);
+            }
+            return count;
+        }
+        return 1;
+    }
+
+    private static long nodes(IRExpr expr) {
+        if (expr instanceof BinopExpr binop) {
+            return 1 + nodes(binop.lhs) + nodes(binop.rhs);
+        } else if (expr instanceof CallExpr call) {
+            long count = 1;
+            for (var arg : call.args) {
+                count += nodes(arg);
+            }
+            return count;
+        } else if (expr instanceof EseqExpr eseq) {
+            return 1 + nodes(eseq.stmt) + nodes(eseq.expr);
+        } else if (expr instanceof MemExpr mem) {
+            return 1 + nodes(mem.expr);
+        }
+        return 1;
+    }
+
+    private static void collectTemps(IRStmt stmt, Set<Frame.Temp> temps) {
+        if (stmt instanceof CJumpStmt cjump) {
+            collectTemps(cjump.condition, temps);
+        } else if (stmt instanceof ExpStmt exp) {
+            collectTemps(exp.expr, temps);
+        } else if (stmt instanceof MoveStmt move) {
+            collectTemps(move.dst, temps);
+            collectTemps(move.src, temps);
+        } else if (stmt instanceof SeqStmt seq) {
+            seq.statements.forEach(s -> collectTemps(s, temps));
+        }
+    }
+
+    private static void collectTemps(IRExpr expr, Set<Frame.Temp> temps) {
+        if (expr instanceof BinopExpr binop) {
+            collectTemps(binop.lhs, temps);
+            collectTemps(binop.rhs, temps);
+        } else if (expr instanceof CallExpr call) {
+            call.args.forEach(arg -> collectTemps(arg, temps));
+        } else if (expr instanceof EseqExpr eseq) {
+            collectTemps(eseq.stmt, temps);
+            collectTemps(eseq.expr, temps);
+        } else if (expr instanceof MemExpr mem) {
+            collectTemps(mem.expr, temps);
+        } else if (expr instanceof TempExpr temp) {
+            temps.add(temp.temp);
+        }
+    }
+}
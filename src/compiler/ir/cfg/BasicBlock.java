@@ -0,0 +1,78 @@
+/**
+ * @ Author: turk
+ * @ Description: Osnovni blok.
+ */
+
+package compiler.ir.cfg;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import compiler.frm.Frame;
+import compiler.ir.code.stmt.*;
+
+/**
+ * Zaporedje stavkov brez skokov v sredino in brez skokov iz sredine.
+ *
+ * Blok se lahko začne z labelo in konča s (pogojnim) skokom.
+ */
+public class BasicBlock {
+    /**
+     * Zaporedna številka bloka v fragmentu.
+     */
+    public final int id;
+
+    /**
+     * Stavki bloka.
+     */
+    public final List<IRStmt> statements;
+
+    final List<BasicBlock> successors = new ArrayList<>(2);
+    final List<BasicBlock> predecessors = new ArrayList<>(2);
+
+    BasicBlock(int id, List<IRStmt> statements) {
+        requireNonNull(statements);
+        this.id = id;
+        this.statements = statements;
+    }
+
+    /**
+     * Labela na začetku bloka, če obstaja.
+     */
+    public Optional<Frame.Label> label() {
+        if (!statements.isEmpty() && statements.get(0) instanceof LabelStmt label) {
+            return Optional.of(label.label);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Zadnji stavek bloka, če je to (pogojni) skok.
+     */
+    public Optional<IRStmt> terminator() {
+        if (!statements.isEmpty()) {
+            var last = statements.get(statements.size() - 1);
+            if (last instanceof JumpStmt || last instanceof CJumpStmt) {
+                return Optional.of(last);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public List<BasicBlock> successors() {
+        return Collections.unmodifiableList(successors);
+    }
+
+    public List<BasicBlock> predecessors() {
+        return Collections.unmodifiableList(predecessors);
+    }
+
+    @Override
+    public String toString() {
+        return "B" + id;
+    }
+}
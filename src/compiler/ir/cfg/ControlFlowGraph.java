@@ -0,0 +1,175 @@
+/**
+ * @ Author: turk
+ * @ Description: Graf poteka kontrole.
+ */
+
+package compiler.ir.cfg;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.*;
+
+import compiler.frm.Frame;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.code.stmt.*;
+
+public class ControlFlowGraph {
+    /**
+     * Klicni zapis fragmenta.
+     */
+    public final Frame frame;
+
+    /**
+     * Osnovni bloki v vrstnem redu, v katerem se pojavijo v kodi.
+     * Prvi blok je vstopni.
+     */
+    public final List<BasicBlock> blocks;
+
+    /**
+     * Preslikava iz label v bloke, ki se z njimi začnejo.
+     */
+    private final Map<Frame.Label, BasicBlock> labels;
+
+    private ControlFlowGraph(Frame frame, List<BasicBlock> blocks, Map<Frame.Label, BasicBlock> labels) {
+        this.frame = frame;
+        this.blocks = blocks;
+        this.labels = labels;
+    }
+
+    /**
+     * Zgradi graf iz lineariziranega fragmenta kode.
+     *
+     * Čas gradnje je linearen v številu stavkov.
+     */
+    public static ControlFlowGraph build(Chunk.CodeChunk chunk) {
+        requireNonNull(chunk);
+        var statements = chunk.code.statements();
+        var blocks = new ArrayList<BasicBlock>();
+        var labels = new HashMap<Frame.Label, BasicBlock>();
+
+        int start = 0;
+        for (int i = 0; i <= statements.size(); i++) {
+            boolean split = i == statements.size()
+                || (statements.get(i) instanceof LabelStmt && i > start);
+            if (split && i > start) {
+                var block = new BasicBlock(blocks.size(), statements.subList(start, i));
+                block.label().ifPresent(label -> labels.put(label, block));
+                blocks.add(block);
+                start = i;
+            }
+            if (i < statements.size() && (statements.get(i) instanceof JumpStmt || statements.get(i) instanceof CJumpStmt)) {
+                var block = new BasicBlock(blocks.size(), statements.subList(start, i + 1));
+                block.label().ifPresent(label -> labels.put(label, block));
+                blocks.add(block);
+                start = i + 1;
+            }
+        }
+        if (blocks.isEmpty()) {
+            blocks.add(new BasicBlock(0, List.of()));
+        }
+
+        var cfg = new ControlFlowGraph(chunk.frame, blocks, labels);
+        for (var block : blocks) {
+            var terminator = block.terminator();
+            if (terminator.isEmpty()) {
+                if (block.id + 1 < blocks.size()) {
+                    cfg.connect(block, blocks.get(block.id + 1));
+                }
+            } else if (terminator.get() instanceof JumpStmt jump) {
+                cfg.connect(block, cfg.blockFor(jump.label));
+            } else if (terminator.get() instanceof CJumpStmt cjump) {
+                cfg.connect(block, cfg.blockFor(cjump.thenLabel));
+                cfg.connect(block, cfg.blockFor(cjump.elseLabel));
+            }
+        }
+        return cfg;
+    }
+
+    private void connect(BasicBlock from, BasicBlock to) {
+        from.successors.add(to);
+        to.predecessors.add(from);
+    }
+
+    public BasicBlock entry() {
+        return blocks.get(0);
+    }
+
+    /**
+     * Blok, ki se začne s podano labelo.
+     */
+    public BasicBlock blockFor(Frame.Label label) {
+        var block = labels.get(label);
+        if (block == null) {
+            throw new IllegalArgumentException("Unknown label " + label + "!");
+        }
+        return block;
+    }
+
+    /**
+     * Bloki v obratnem vrstnem redu obiska po globini (RPO).
+     * Nedosegljivi bloki niso vključeni.
+     */
+    public List<BasicBlock> reversePostOrder() {
+        var order = postOrder();
+        Collections.reverse(order);
+        return order;
+    }
+
+    /**
+     * Bloki v vrstnem redu obiska po globini (postorder).
+     * Nedosegljivi bloki niso vključeni.
+     */
+    public List<BasicBlock> postOrder() {
+        var order = new ArrayList<BasicBlock>(blocks.size());
+        var visited = new boolean[blocks.size()];
+        // Iterativni DFS - globina gnezdenja ne sme biti omejena s skladom JVM.
+        var stack = new ArrayDeque<BasicBlock>();
+        var nextSuccessor = new int[blocks.size()];
+        stack.push(entry());
+        visited[entry().id] = true;
+        while (!stack.isEmpty()) {
+            var block = stack.peek();
+            if (nextSuccessor[block.id] < block.successors.size()) {
+                var succ = block.successors.get(nextSuccessor[block.id]++);
+                if (!visited[succ.id]) {
+                    visited[succ.id] = true;
+                    stack.push(succ);
+                }
+            } else {
+                stack.pop();
+                order.add(block);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Dosegljivost blokov iz vstopnega bloka (indeksirano z `BasicBlock.id`).
+     */
+    public boolean[] reachable() {
+        var reachable = new boolean[blocks.size()];
+        for (var block : postOrder()) {
+            reachable[block.id] = true;
+        }
+        return reachable;
+    }
+
+    /**
+     * Izračunaj drevo dominatorjev.
+     */
+    public DominatorTree dominators() {
+        return new DominatorTree(this);
+    }
+
+    /**
+     * Stavki vseh blokov v vrstnem redu, v katerem so bloki shranjeni.
+     */
+    public List<IRStmt> statements() {
+        var size = blocks.stream().mapToInt(block -> block.statements.size()).sum();
+        var statements = new ArrayList<IRStmt>(size);
+        for (var block : blocks) {
+            statements.addAll(block.statements);
+        }
+        return statements;
+    }
+}
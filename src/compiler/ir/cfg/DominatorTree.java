@@ -0,0 +1,131 @@
+/**
+ * @ Author: turk
+ * @ Description: Drevo dominatorjev.
+ */
+
+package compiler.ir.cfg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Neposredne dominatorje izračunamo z iterativnim algoritmom
+ * (Cooper, Harvey, Kennedy: "A Simple, Fast Dominance Algorithm"),
+ * ki bloke obiskuje v obratnem vrstnem redu obiska po globini.
+ */
+public class DominatorTree {
+    private final ControlFlowGraph cfg;
+
+    /**
+     * Neposredni dominator bloka (indeksirano z `BasicBlock.id`), -1 za nedosegljive bloke.
+     */
+    private final int[] idom;
+
+    /**
+     * Zaporedna številka bloka v postorder obhodu.
+     */
+    private final int[] postOrderNumber;
+
+    private final List<List<BasicBlock>> children;
+
+    DominatorTree(ControlFlowGraph cfg) {
+        this.cfg = cfg;
+        int n = cfg.blocks.size();
+        this.idom = new int[n];
+        this.postOrderNumber = new int[n];
+        Arrays.fill(idom, -1);
+        Arrays.fill(postOrderNumber, -1);
+
+        var postOrder = cfg.postOrder();
+        for (int i = 0; i < postOrder.size(); i++) {
+            postOrderNumber[postOrder.get(i).id] = i;
+        }
+        var rpo = new ArrayList<>(postOrder);
+        Collections.reverse(rpo);
+
+        var entry = cfg.entry();
+        idom[entry.id] = entry.id;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (var block : rpo) {
+                if (block == entry) {
+                    continue;
+                }
+                int newIdom = -1;
+                for (var pred : block.predecessors) {
+                    if (idom[pred.id] == -1) {
+                        continue;
+                    }
+                    newIdom = newIdom == -1 ? pred.id : intersect(pred.id, newIdom);
+                }
+                if (idom[block.id] != newIdom) {
+                    idom[block.id] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+
+        this.children = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            children.add(new ArrayList<>());
+        }
+        for (var block : rpo) {
+            if (block != entry) {
+                children.get(idom[block.id]).add(block);
+            }
+        }
+    }
+
+    private int intersect(int a, int b) {
+        while (a != b) {
+            while (postOrderNumber[a] < postOrderNumber[b]) {
+                a = idom[a];
+            }
+            while (postOrderNumber[b] < postOrderNumber[a]) {
+                b = idom[b];
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Neposredni dominator bloka.
+     * Vstopni in nedosegljivi bloki ga nimajo.
+     */
+    public Optional<BasicBlock> immediateDominator(BasicBlock block) {
+        if (block == cfg.entry() || idom[block.id] == -1) {
+            return Optional.empty();
+        }
+        return Optional.of(cfg.blocks.get(idom[block.id]));
+    }
+
+    /**
+     * Bloki, katerih neposredni dominator je podan blok.
+     */
+    public List<BasicBlock> children(BasicBlock block) {
+        return Collections.unmodifiableList(children.get(block.id));
+    }
+
+    /**
+     * Ali blok `a` dominira blok `b`?
+     */
+    public boolean dominates(BasicBlock a, BasicBlock b) {
+        if (idom[b.id] == -1) {
+            return false;
+        }
+        int current = b.id;
+        while (true) {
+            if (current == a.id) {
+                return true;
+            }
+            if (current == idom[current]) {
+                return false;
+            }
+            current = idom[current];
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * @ Author: turk
+ * @ Description: Povezan klic funkcije.
+ */
+
+package compiler.ir.code.expr;
+
+import java.util.List;
+
+import compiler.frm.Frame.Label;
+
+/**
+ * Klic funkcije, katerega cilj je razrešil `Linker`.
+ */
+public class LinkedCallExpr extends CallExpr {
+    /**
+     * Indeks fragmenta kode klicane funkcije v povezanem programu.
+     */
+    public final int function;
+
+    public LinkedCallExpr(Label label, List<IRExpr> args, int function) {
+        super(label, args);
+        this.function = function;
+    }
+}
@@ -11,27 +11,56 @@ import common.Constants;
 import compiler.frm.Frame;
 
 public class NameExpr extends IRExpr {
+    /**
+     * Register navideznega stroja.
+     */
+    public enum Register {
+        FP, SP
+    }
+
+    private static final Frame.Label framePointer = Frame.Label.named(Constants.framePointer);
+    private static final Frame.Label stackPointer = Frame.Label.named(Constants.stackPointer);
+
     /**
      * Labela imenovane lokacije.
      */
     public final Frame.Label label;
+
+    /**
+     * Register, ki ga ime predstavlja (`FP` ali `SP`), oz. `null` za labele.
+     */
+    public final Register register;
     
     public NameExpr(Frame.Label label) {
         requireNonNull(label);
         this.label = label;
+        if (label.name.equals(Constants.framePointer)) {
+            this.register = Register.FP;
+        } else if (label.name.equals(Constants.stackPointer)) {
+            this.register = Register.SP;
+        } else {
+            this.register = null;
+        }
     }
 
     /**
      * Kazalec na vrh klicnega zapisa.
      */
     public static NameExpr FP() {
-        return new NameExpr(Frame.Label.named(Constants.framePointer));
+        return new NameExpr(framePointer);
     }
 
     /**
      * Kazalec na dno klicnega zapisa.
      */
     public static NameExpr SP() {
-        return new NameExpr(Frame.Label.named(Constants.stackPointer));
+        return new NameExpr(stackPointer);
+    }
+
+    /**
+     * Ali ime predstavlja register (`FP` ali `SP`)?
+     */
+    public boolean isRegister() {
+        return register != null;
     }
 }
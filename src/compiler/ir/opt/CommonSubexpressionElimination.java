@@ -0,0 +1,297 @@
+/**
+ * @ Author: turk
+ * @ Description: Odstranjevanje skupnih podizrazov (lokalno oštevilčenje vrednosti).
+ */
+
+package compiler.ir.opt;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.*;
+
+import compiler.frm.Frame;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+/**
+ * Optimizacija deluje nad lineariziranimi fragmenti kode.
+ *
+ * Znotraj vsakega osnovnega bloka poiščemo ponovljene izraze brez stranskih
+ * učinkov (nalaganja iz pomnilnika in binarne operacije). Ob prvi pojavitvi
+ * izraz izračunamo v novo začasno spremenljivko, ostale pojavitve pa nadomestimo
+ * z njo. Zapis v pomnilnik in klic funkcije razveljavita izraze, ki berejo
+ * (morda spremenjen) pomnilnik.
+ */
+public class CommonSubexpressionElimination {
+    /**
+     * Največje število ponovitev štetja pojavitev v bloku.
+     */
+    private static final int maxIterations = 4;
+
+    public Chunk.CodeChunk optimize(Chunk.CodeChunk chunk) {
+        requireNonNull(chunk);
+        var statements = chunk.code.statements();
+        var optimized = new ArrayList<IRStmt>(statements.size());
+        int blockStart = 0;
+        for (int i = 0; i < statements.size(); i++) {
+            var stmt = statements.get(i);
+            boolean endOfBlock = stmt instanceof JumpStmt
+                || stmt instanceof CJumpStmt
+                || i + 1 == statements.size()
+                || statements.get(i + 1) instanceof LabelStmt;
+            if (endOfBlock) {
+                optimized.addAll(optimizeBlock(statements.subList(blockStart, i + 1)));
+                blockStart = i + 1;
+            }
+        }
+        return new Chunk.CodeChunk(chunk.frame, new SeqStmt(optimized));
+    }
+
+    /**
+     * Najprej preštejemo pojavitve posameznih vrednosti, nato pa blok prepišemo.
+     *
+     * Štetje ponavljamo, saj podizrazov ponovljenih izrazov, ki jih nadomestimo
+     * z začasno spremenljivko, ni več treba računati.
+     */
+    private List<IRStmt> optimizeBlock(List<IRStmt> block) {
+        Set<String> hoisted = Set.of();
+        for (int i = 0; i < maxIterations; i++) {
+            var numbering = new Numbering(hoisted, false);
+            numbering.run(block);
+            var next = numbering.profitable();
+            if (next.equals(hoisted)) {
+                break;
+            }
+            hoisted = next;
+        }
+        if (hoisted.isEmpty()) {
+            return block;
+        }
+        var numbering = new Numbering(hoisted, true);
+        numbering.run(block);
+        return numbering.output;
+    }
+
+    // --------------------------------------
+
+    /**
+     * Vrednost, ki je v bloku na voljo.
+     *
+     * @param id enolična oznaka pojavitve (ključ + indeks stavka, kjer je vrednost postala na voljo)
+     * @param size število vozlišč izraza
+     * @param temps začasne spremenljivke, ki jih izraz bere
+     * @param slots pomnilniške lokacije, ki jih izraz bere
+     * @param readsUnknown ali izraz bere iz neznanega naslova
+     */
+    private record Value(String id, int size, Set<Frame.Temp> temps, Set<String> slots, boolean readsUnknown) {
+        boolean readsMemory() {
+            return readsUnknown || !slots.isEmpty();
+        }
+    }
+
+    private static class Numbering {
+        /**
+         * Oznake vrednosti, ki jih izračunamo v začasno spremenljivko.
+         */
+        final Set<String> hoisted;
+
+        /**
+         * Ali prepisujemo kodo (sicer le štejemo pojavitve)?
+         */
+        final boolean rewrite;
+
+        final Map<String, Value> available = new HashMap<>();
+        final Map<String, Integer> counts = new HashMap<>();
+        final Map<String, Value> values = new HashMap<>();
+        final Map<String, Frame.Temp> holders = new HashMap<>();
+        final List<IRStmt> output = new ArrayList<>();
+
+        int stmtIndex = 0;
+
+        Numbering(Set<String> hoisted, boolean rewrite) {
+            this.hoisted = hoisted;
+            this.rewrite = rewrite;
+        }
+
+        void run(List<IRStmt> block) {
+            for (var stmt : block) {
+                var rewritten = visit(stmt);
+                output.add(rewritten);
+                invalidate(stmt);
+                stmtIndex++;
+            }
+        }
+
+        /**
+         * Vrednosti, ki se pojavijo večkrat in se jih splača izračunati vnaprej.
+         */
+        Set<String> profitable() {
+            var result = new HashSet<String>();
+            for (var entry : counts.entrySet()) {
+                int count = entry.getValue();
+                int size = values.get(entry.getKey()).size();
+                // count * size vozlišč nadomestimo z (MOVE + izraz) + count branj začasne spremenljivke
+                if (count >= 2 && count * size > 1 + size + count) {
+                    result.add(entry.getKey());
+                }
+            }
+            return result;
+        }
+
+        private IRStmt visit(IRStmt stmt) {
+            if (stmt instanceof MoveStmt move) {
+                IRExpr dst = move.dst;
+                if (move.dst instanceof MemExpr mem) {
+                    dst = new MemExpr(visit(mem.expr));
+                }
+                return new MoveStmt(dst, visit(move.src));
+            } else if (stmt instanceof ExpStmt exp) {
+                return new ExpStmt(visit(exp.expr));
+            } else if (stmt instanceof CJumpStmt cjump) {
+                return new CJumpStmt(visit(cjump.condition), cjump.thenLabel, cjump.elseLabel);
+            }
+            return stmt;
+        }
+
+        private IRExpr visit(IRExpr expr) {
+            if (expr instanceof CallExpr call) {
+                var args = new ArrayList<IRExpr>(call.args.size());
+                for (var arg : call.args) {
+                    args.add(visit(arg));
+                }
+                return new CallExpr(call.label, args);
+            }
+            if (!(expr instanceof BinopExpr || expr instanceof MemExpr) || !ConstantFolding.isPure(expr)) {
+                return expr;
+            }
+            var key = key(expr);
+            var value = available.get(key);
+            boolean first = value == null;
+            if (first) {
+                value = describe(expr, key + "@" + stmtIndex);
+                available.put(key, value);
+                values.put(value.id(), value);
+            }
+            counts.merge(value.id(), 1, Integer::sum);
+            boolean hoist = hoisted.contains(value.id());
+            if (hoist && !first) {
+                return rewrite ? new TempExpr(holders.get(value.id())) : expr;
+            }
+            IRExpr rebuilt;
+            if (expr instanceof BinopExpr binop) {
+                rebuilt = new BinopExpr(visit(binop.lhs), visit(binop.rhs), binop.op);
+            } else {
+                rebuilt = new MemExpr(visit(((MemExpr) expr).expr));
+            }
+            if (hoist && rewrite) {
+                var temp = Frame.Temp.next();
+                holders.put(value.id(), temp);
+                output.add(new MoveStmt(new TempExpr(temp), rebuilt));
+                return new TempExpr(temp);
+            }
+            return rebuilt;
+        }
+
+        /**
+         * Po izvedbi stavka odstranimo vrednosti, ki morda niso več veljavne.
+         */
+        private void invalidate(IRStmt stmt) {
+            if (stmt instanceof MoveStmt move) {
+                if (move.dst instanceof TempExpr temp) {
+                    available.values().removeIf(v -> v.temps().contains(temp.temp));
+                } else if (move.dst instanceof MemExpr mem) {
+                    var slot = slot(mem.expr);
+                    if (slot.isPresent()) {
+                        available.values().removeIf(v -> v.readsUnknown() || v.slots().contains(slot.get()));
+                    } else {
+                        available.values().removeIf(Value::readsMemory);
+                    }
+                }
+                if (move.src instanceof CallExpr) {
+                    available.values().removeIf(Value::readsMemory);
+                }
+            } else if (stmt instanceof ExpStmt exp && exp.expr instanceof CallExpr) {
+                available.values().removeIf(Value::readsMemory);
+            }
+        }
+
+        private Value describe(IRExpr expr, String id) {
+            var temps = new HashSet<Frame.Temp>();
+            var slots = new HashSet<String>();
+            var unknown = new boolean[] { false };
+            int size = collect(expr, temps, slots, unknown);
+            return new Value(id, size, temps, slots, unknown[0]);
+        }
+
+        private int collect(IRExpr expr, Set<Frame.Temp> temps, Set<String> slots, boolean[] unknown) {
+            if (expr instanceof BinopExpr binop) {
+                return 1 + collect(binop.lhs, temps, slots, unknown) + collect(binop.rhs, temps, slots, unknown);
+            } else if (expr instanceof MemExpr mem) {
+                var slot = slot(mem.expr);
+                if (slot.isPresent()) {
+                    slots.add(slot.get());
+                } else {
+                    unknown[0] = true;
+                }
+                return 1 + collect(mem.expr, temps, slots, unknown);
+            } else if (expr instanceof TempExpr temp) {
+                temps.add(temp.temp);
+            }
+            return 1;
+        }
+    }
+
+    // --------------------------------------
+
+    /**
+     * Določi pomnilniško lokacijo, na katero kaže naslov.
+     *
+     * Lokacije v klicnem zapisu (`FP + c`, `MEM(FP) + c`, ...) in globalne spremenljivke
+     * (`NAME g`) se med seboj ne prekrivajo; za ostale naslove (npr. elemente tabel)
+     * lokacije ne poznamo.
+     */
+    private static Optional<String> slot(IRExpr address) {
+        if (address instanceof NameExpr name && !name.isRegister()) {
+            return Optional.of(name.label.name);
+        }
+        if (isFrameChain(address)) {
+            return Optional.of(key(address) + ":0");
+        }
+        if (address instanceof BinopExpr binop
+                && binop.op == BinopExpr.Operator.ADD
+                && isFrameChain(binop.lhs)
+                && binop.rhs instanceof ConstantExpr offset) {
+            return Optional.of(key(binop.lhs) + ":" + offset.constant);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * `FP`, `MEM(FP)`, `MEM(MEM(FP))`, ... (veriga statičnih povezav).
+     */
+    private static boolean isFrameChain(IRExpr expr) {
+        if (expr instanceof NameExpr name) {
+            return name.register == NameExpr.Register.FP;
+        }
+        return expr instanceof MemExpr mem && isFrameChain(mem.expr);
+    }
+
+    /**
+     * Strukturni ključ izraza.
+     */
+    private static String key(IRExpr expr) {
+        if (expr instanceof BinopExpr binop) {
+            return binop.op + "(" + key(binop.lhs) + "," + key(binop.rhs) + ")";
+        } else if (expr instanceof MemExpr mem) {
+            return "MEM(" + key(mem.expr) + ")";
+        } else if (expr instanceof ConstantExpr constant) {
+            return String.valueOf(constant.constant);
+        } else if (expr instanceof NameExpr name) {
+            return name.label.name;
+        } else if (expr instanceof TempExpr temp) {
+            return temp.temp.toString();
+        }
+        throw new IllegalArgumentException("Unknown expr type");
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * @ Author: turk
+ * @ Description: Zvijanje konstant in algebrajske poenostavitve vmesne kode.
+ */
+
+package compiler.ir.opt;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import compiler.ir.chunk.Chunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+public class ConstantFolding {
+    /**
+     * Izvede zvijanje konstant nad vsemi fragmenti kode.
+     *
+     * Podatkovni in globalni fragmenti ostanejo nespremenjeni.
+     */
+    public List<Chunk> fold(List<Chunk> chunks) {
+        requireNonNull(chunks);
+        var folded = new ArrayList<Chunk>(chunks.size());
+        for (var chunk : chunks) {
+            if (chunk instanceof Chunk.CodeChunk code) {
+                folded.add(new Chunk.CodeChunk(code.frame, fold(code.code)));
+            } else {
+                folded.add(chunk);
+            }
+        }
+        return folded;
+    }
+
+    public IRStmt fold(IRStmt stmt) {
+        if (stmt instanceof CJumpStmt cJumpStmt) {
+            return fold(cJumpStmt);
+        } else if (stmt instanceof ExpStmt expStmt) {
+            return new ExpStmt(fold(expStmt.expr));
+        } else if (stmt instanceof JumpStmt jumpStmt) {
+            return jumpStmt;
+        } else if (stmt instanceof LabelStmt labelStmt) {
+            return labelStmt;
+        } else if (stmt instanceof MoveStmt moveStmt) {
+            return new MoveStmt(fold(moveStmt.dst), fold(moveStmt.src));
+        } else if (stmt instanceof SeqStmt seqStmt) {
+            var statements = new ArrayList<IRStmt>(seqStmt.statements.size());
+            for (var s : seqStmt.statements) {
+                statements.add(fold(s));
+            }
+            return new SeqStmt(statements);
+        } else {
+            throw new IllegalArgumentException("Unknown stmt type");
+        }
+    }
+
+    public IRExpr fold(IRExpr expr) {
+        if (expr instanceof BinopExpr binopExpr) {
+            return fold(binopExpr);
+        } else if (expr instanceof CallExpr callExpr) {
+            var args = new ArrayList<IRExpr>(callExpr.args.size());
+            for (var arg : callExpr.args) {
+                args.add(fold(arg));
+            }
+            return new CallExpr(callExpr.label, args);
+        } else if (expr instanceof EseqExpr eseqExpr) {
+            return new EseqExpr(fold(eseqExpr.stmt), fold(eseqExpr.expr));
+        } else if (expr instanceof MemExpr memExpr) {
+            return new MemExpr(fold(memExpr.expr));
+        } else if (expr instanceof ConstantExpr || expr instanceof NameExpr || expr instanceof TempExpr) {
+            return expr;
+        } else {
+            throw new IllegalArgumentException("Unknown expr type");
+        }
+    }
+
+    /**
+     * Pogojni skok s konstantnim pogojem nadomestimo z brezpogojnim.
+     */
+    private IRStmt fold(CJumpStmt cjump) {
+        var condition = fold(cjump.condition);
+        if (condition instanceof ConstantExpr constant) {
+            return new JumpStmt(constant.constant == 1 ? cjump.thenLabel : cjump.elseLabel);
+        }
+        return new CJumpStmt(condition, cjump.thenLabel, cjump.elseLabel);
+    }
+
+    private IRExpr fold(BinopExpr binop) {
+        var lhs = fold(binop.lhs);
+        var rhs = fold(binop.rhs);
+        if (lhs instanceof ConstantExpr l && rhs instanceof ConstantExpr r) {
+            var value = evaluate(binop.op, l.constant, r.constant);
+            if (value.isPresent()) {
+                return new ConstantExpr(value.get());
+            }
+        }
+        return simplify(lhs, rhs, binop.op);
+    }
+
+    /**
+     * Algebrajske identitete (x + 0, x * 1, x * 0, ...).
+     *
+     * Izraz lahko zavržemo le, če nima stranskih učinkov.
+     */
+    private IRExpr simplify(IRExpr lhs, IRExpr rhs, BinopExpr.Operator op) {
+        switch (op) {
+            case ADD:
+                if (isConstant(rhs, 0)) return lhs;
+                if (isConstant(lhs, 0)) return rhs;
+                // (x + c1) + c2 = x + (c1 + c2)
+                if (rhs instanceof ConstantExpr c2
+                        && lhs instanceof BinopExpr inner
+                        && inner.op == BinopExpr.Operator.ADD
+                        && inner.rhs instanceof ConstantExpr c1) {
+                    return simplify(inner.lhs, new ConstantExpr(c1.constant + c2.constant), op);
+                }
+                break;
+            case SUB:
+                if (isConstant(rhs, 0)) return lhs;
+                break;
+            case MUL:
+                if (isConstant(rhs, 1)) return lhs;
+                if (isConstant(lhs, 1)) return rhs;
+                if (isConstant(rhs, 0) && isPure(lhs)) return rhs;
+                if (isConstant(lhs, 0) && isPure(rhs)) return lhs;
+                break;
+            case DIV:
+                if (isConstant(rhs, 1)) return lhs;
+                break;
+            case AND:
+                if (isConstant(rhs, 0) && isPure(lhs)) return rhs;
+                if (isConstant(lhs, 0) && isPure(rhs)) return lhs;
+                break;
+            case OR:
+                if (isConstant(rhs, 0)) return lhs;
+                if (isConstant(lhs, 0)) return rhs;
+                break;
+            default:
+                break;
+        }
+        return new BinopExpr(lhs, rhs, op);
+    }
+
+    /**
+     * Izračuna vrednost binarnega izraza z enako semantiko, kot jo ima navidezni stroj.
+     *
+     * Deljenja z 0 ne zvijemo, saj mora napaka nastati šele ob izvajanju.
+     */
+    private Optional<Integer> evaluate(BinopExpr.Operator op, int lhs, int rhs) {
+        switch (op) {
+            case ADD: return Optional.of(lhs + rhs);
+            case SUB: return Optional.of(lhs - rhs);
+            case MUL: return Optional.of(lhs * rhs);
+            case DIV: return rhs == 0 ? Optional.empty() : Optional.of(lhs / rhs);
+            case AND: return Optional.of(lhs & rhs);
+            case OR: return Optional.of(lhs | rhs);
+            case EQ: return Optional.of(lhs == rhs ? 1 : 0);
+            case NEQ: return Optional.of(lhs != rhs ? 1 : 0);
+            case LT: return Optional.of(lhs < rhs ? 1 : 0);
+            case GT: return Optional.of(lhs > rhs ? 1 : 0);
+            case LEQ: return Optional.of(lhs <= rhs ? 1 : 0);
+            case GEQ: return Optional.of(lhs >= rhs ? 1 : 0);
+            default: return Optional.empty();
+        }
+    }
+
+    private boolean isConstant(IRExpr expr, int value) {
+        return expr instanceof ConstantExpr constant && constant.constant == value;
+    }
+
+    /**
+     * Ali je izraz brez stranskih učinkov (ne vsebuje klicev ali stavkov)?
+     */
+    static boolean isPure(IRExpr expr) {
+        if (expr instanceof BinopExpr binop) {
+            return isPure(binop.lhs) && isPure(binop.rhs);
+        } else if (expr instanceof MemExpr mem) {
+            return isPure(mem.expr);
+        } else if (expr instanceof CallExpr || expr instanceof EseqExpr) {
+            return false;
+        }
+        return true;
+    }
+}
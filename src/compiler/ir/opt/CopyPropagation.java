@@ -0,0 +1,279 @@
+/**
+ * @ Author: turk
+ * @ Description: Širjenje kopij in konstant v linearizirani kodi.
+ */
+
+package compiler.ir.opt;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import compiler.frm.Frame;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+/**
+ * Optimizacija deluje nad lineariziranimi fragmenti kode.
+ *
+ * Linearizacija vsak argument klica in vsak rezultat klica shrani v novo
+ * začasno spremenljivko, zato je v kodi veliko prirejanj oblike
+ * `MOVE(TEMP, TEMP)`, `MOVE(TEMP, CONST)` in `MOVE(TEMP, NAME)`.
+ * Znotraj osnovnega bloka uporabe takšne začasne spremenljivke nadomestimo
+ * z njeno vrednostjo. Prirejanje odstranimo, če ima spremenljivka le eno
+ * definicijo in smo nadomestili vse njene uporabe.
+ *
+ * Začasno spremenljivko, ki jo uporabimo le enkrat takoj za definicijo
+ * `MOVE(T, e)` (kjer je `e` brez stranskih učinkov), nadomestimo z `e`.
+ * Enako velja za argumente klica, izračunane tik pred klicem. Neuporabljena
+ * prirejanja brez stranskih učinkov odstranimo.
+ * Klici ostanejo oblike `MOVE(TEMP, CALL)` oz. `EXP(CALL)`.
+ */
+public class CopyPropagation {
+    public Chunk.CodeChunk optimize(Chunk.CodeChunk chunk) {
+        requireNonNull(chunk);
+        var statements = chunk.code.statements();
+        var defs = new HashMap<Frame.Temp, Integer>();
+        var uses = new HashMap<Frame.Temp, Integer>();
+        for (var stmt : statements) {
+            count(stmt, defs, uses);
+        }
+
+        var propagation = new Propagation(defs);
+        var rewritten = new ArrayList<IRStmt>(statements.size());
+        for (int i = 0; i < statements.size(); i++) {
+            var stmt = statements.get(i);
+            if (stmt instanceof LabelStmt) {
+                propagation.copies.clear();
+            }
+            rewritten.add(propagation.visit(stmt));
+            if (stmt instanceof JumpStmt || stmt instanceof CJumpStmt) {
+                propagation.copies.clear();
+            }
+        }
+
+        var optimized = new ArrayList<IRStmt>(rewritten.size());
+        for (var stmt : rewritten) {
+            if (stmt instanceof MoveStmt move && move.dst instanceof TempExpr temp && defs.get(temp.temp) == 1) {
+                int remaining = uses.getOrDefault(temp.temp, 0) - propagation.replaced.getOrDefault(temp.temp, 0);
+                if (remaining == 0 && (isCopy(move.src) || ConstantFolding.isPure(move.src))) {
+                    continue;
+                }
+            }
+            optimized.add(stmt);
+        }
+        return new Chunk.CodeChunk(chunk.frame, new SeqStmt(forward(optimized, defs)));
+    }
+
+    /**
+     * Prirejanja `MOVE(T, e)` brez stranskih učinkov prepiše v stavek, ki
+     * edini uporabi `T`: v naslednji stavek ali v klic.
+     *
+     * Med definicijo in klicem so le prirejanja v začasne spremenljivke
+     * brez stranskih učinkov, zato lahko `e` izračunamo šele ob klicu, če nobeno
+     * od teh prirejanj ne spremeni začasnih spremenljivk, ki jih `e` bere.
+     * Stavek pred izračunom svojih izrazov ne piše v pomnilnik, zato lahko
+     * `e` izračunamo tudi znotraj naslednjega stavka.
+     */
+    private List<IRStmt> forward(List<IRStmt> statements, Map<Frame.Temp, Integer> defs) {
+        var uses = new HashMap<Frame.Temp, Integer>();
+        for (var stmt : statements) {
+            count(stmt, new HashMap<>(), uses);
+        }
+        var removed = new boolean[statements.size()];
+        var result = new ArrayList<>(statements);
+        for (int i = 0; i < statements.size(); i++) {
+            var call = call(statements.get(i));
+            if (call == null) {
+                if (i > 0 && !removed[i - 1] && isPureMove(result.get(i - 1))) {
+                    var move = (MoveStmt) result.get(i - 1);
+                    var temp = ((TempExpr) move.dst).temp;
+                    var used = new HashMap<Frame.Temp, Integer>();
+                    count(statements.get(i), new HashMap<>(), used);
+                    if (used.containsKey(temp) && defs.get(temp) == 1 && uses.get(temp) == 1) {
+                        var substitution = new Propagation(defs);
+                        substitution.copies.put(temp, move.src);
+                        result.set(i, substitution.visit(result.get(i)));
+                        removed[i - 1] = true;
+                    }
+                }
+                continue;
+            }
+            var args = new ArrayList<>(call.args);
+            boolean changed = false;
+            // Temps, ki jih definirajo prirejanja med obravnavano definicijo in klicem.
+            var defined = new HashSet<Frame.Temp>();
+            for (int k = i - 1; k >= 0 && !removed[k] && isPureMove(result.get(k)); k--) {
+                var move = (MoveStmt) result.get(k);
+                var temp = ((TempExpr) move.dst).temp;
+                int index = argumentIndex(args, temp);
+                if (index >= 0 && defs.get(temp) == 1 && uses.get(temp) == 1 && !readsAny(move.src, defined)) {
+                    args.set(index, move.src);
+                    removed[k] = true;
+                    changed = true;
+                }
+                defined.add(temp);
+            }
+            if (changed) {
+                result.set(i, withCall(statements.get(i), new CallExpr(call.label, args)));
+            }
+        }
+        var forwarded = new ArrayList<IRStmt>(statements.size());
+        for (int i = 0; i < result.size(); i++) {
+            if (!removed[i]) {
+                forwarded.add(result.get(i));
+            }
+        }
+        return forwarded;
+    }
+
+    private static boolean isPureMove(IRStmt stmt) {
+        return stmt instanceof MoveStmt move && move.dst instanceof TempExpr && ConstantFolding.isPure(move.src);
+    }
+
+    private static CallExpr call(IRStmt stmt) {
+        if (stmt instanceof MoveStmt move && move.dst instanceof TempExpr && move.src instanceof CallExpr call) {
+            return call;
+        } else if (stmt instanceof ExpStmt exp && exp.expr instanceof CallExpr call) {
+            return call;
+        }
+        return null;
+    }
+
+    private static IRStmt withCall(IRStmt stmt, CallExpr call) {
+        if (stmt instanceof MoveStmt move) {
+            return new MoveStmt(move.dst, call);
+        }
+        return new ExpStmt(call);
+    }
+
+    private static int argumentIndex(List<IRExpr> args, Frame.Temp temp) {
+        for (int i = 0; i < args.size(); i++) {
+            if (args.get(i) instanceof TempExpr t && t.temp.equals(temp)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean readsAny(IRExpr expr, Set<Frame.Temp> temps) {
+        if (expr instanceof TempExpr temp) {
+            return temps.contains(temp.temp);
+        } else if (expr instanceof BinopExpr binop) {
+            return readsAny(binop.lhs, temps) || readsAny(binop.rhs, temps);
+        } else if (expr instanceof MemExpr mem) {
+            return readsAny(mem.expr, temps);
+        }
+        return false;
+    }
+
+    /**
+     * Ali je izraz vrednost, ki jo lahko prepišemo na mesto uporabe
+     * (začasna spremenljivka, konstanta, labela ali register)?
+     */
+    private static boolean isCopy(IRExpr expr) {
+        return expr instanceof TempExpr || expr instanceof ConstantExpr || expr instanceof NameExpr;
+    }
+
+    // --------------------------------------
+
+    private static class Propagation {
+        final Map<Frame.Temp, Integer> defs;
+
+        /**
+         * Vrednosti začasnih spremenljivk, ki so na voljo v trenutnem bloku.
+         */
+        final Map<Frame.Temp, IRExpr> copies = new HashMap<>();
+
+        /**
+         * Število nadomeščenih uporab posamezne začasne spremenljivke.
+         */
+        final Map<Frame.Temp, Integer> replaced = new HashMap<>();
+
+        Propagation(Map<Frame.Temp, Integer> defs) {
+            this.defs = defs;
+        }
+
+        IRStmt visit(IRStmt stmt) {
+            if (stmt instanceof MoveStmt move) {
+                if (move.dst instanceof TempExpr temp) {
+                    var src = visit(move.src);
+                    // Prejšnja vrednost spremenljivke ni več veljavna.
+                    copies.remove(temp.temp);
+                    copies.values().removeIf(value -> value instanceof TempExpr t && t.temp.equals(temp.temp));
+                    if (isCopy(src) && !(src instanceof TempExpr t && t.temp.equals(temp.temp)) && defs.get(temp.temp) == 1) {
+                        copies.put(temp.temp, src);
+                    }
+                    return new MoveStmt(temp, src);
+                }
+                var dst = move.dst instanceof MemExpr mem ? new MemExpr(visit(mem.expr)) : move.dst;
+                return new MoveStmt(dst, visit(move.src));
+            } else if (stmt instanceof ExpStmt exp) {
+                return new ExpStmt(visit(exp.expr));
+            } else if (stmt instanceof CJumpStmt cjump) {
+                return new CJumpStmt(visit(cjump.condition), cjump.thenLabel, cjump.elseLabel);
+            }
+            return stmt;
+        }
+
+        IRExpr visit(IRExpr expr) {
+            if (expr instanceof TempExpr temp) {
+                var value = copies.get(temp.temp);
+                if (value == null) {
+                    return temp;
+                }
+                replaced.merge(temp.temp, 1, Integer::sum);
+                return value;
+            } else if (expr instanceof BinopExpr binop) {
+                return new BinopExpr(visit(binop.lhs), visit(binop.rhs), binop.op);
+            } else if (expr instanceof MemExpr mem) {
+                return new MemExpr(visit(mem.expr));
+            } else if (expr instanceof CallExpr call) {
+                var args = new ArrayList<IRExpr>(call.args.size());
+                for (var arg : call.args) {
+                    args.add(visit(arg));
+                }
+                return new CallExpr(call.label, args);
+            }
+            return expr;
+        }
+    }
+
+    // --------------------------------------
+
+    private static void count(IRStmt stmt, Map<Frame.Temp, Integer> defs, Map<Frame.Temp, Integer> uses) {
+        if (stmt instanceof MoveStmt move) {
+            if (move.dst instanceof TempExpr temp) {
+                defs.merge(temp.temp, 1, Integer::sum);
+            } else {
+                count(move.dst, uses);
+            }
+            count(move.src, uses);
+        } else if (stmt instanceof ExpStmt exp) {
+            count(exp.expr, uses);
+        } else if (stmt instanceof CJumpStmt cjump) {
+            count(cjump.condition, uses);
+        }
+    }
+
+    private static void count(IRExpr expr, Map<Frame.Temp, Integer> uses) {
+        if (expr instanceof TempExpr temp) {
+            uses.merge(temp.temp, 1, Integer::sum);
+        } else if (expr instanceof BinopExpr binop) {
+            count(binop.lhs, uses);
+            count(binop.rhs, uses);
+        } else if (expr instanceof MemExpr mem) {
+            count(mem.expr, uses);
+        } else if (expr instanceof CallExpr call) {
+            for (var arg : call.args) {
+                count(arg, uses);
+            }
+        }
+    }
+}
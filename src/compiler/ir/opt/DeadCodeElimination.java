@@ -0,0 +1,109 @@
+/**
+ * @ Author: turk
+ * @ Description: Odstranjevanje mrtve in nedosegljive kode.
+ */
+
+package compiler.ir.opt;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import compiler.frm.Frame;
+import compiler.ir.cfg.ControlFlowGraph;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.code.stmt.*;
+
+/**
+ * Optimizacija deluje nad lineariziranimi fragmenti kode in odstrani:
+ * - bloke, ki niso dosegljivi iz vstopnega bloka,
+ * - skoke na labelo, ki takoj sledi skoku,
+ * - labele, na katere ne skoči noben skok,
+ * - izraze-stavke brez stranskih učinkov.
+ */
+public class DeadCodeElimination {
+    public Chunk.CodeChunk optimize(Chunk.CodeChunk chunk) {
+        requireNonNull(chunk);
+        var statements = chunk.code.statements();
+        while (true) {
+            var optimized = removeUnusedLabels(removeJumpsToNext(removeDeadStatements(removeUnreachable(chunk.frame, statements))));
+            if (optimized.size() == statements.size()) {
+                return new Chunk.CodeChunk(chunk.frame, new SeqStmt(optimized));
+            }
+            statements = optimized;
+        }
+    }
+
+    private List<IRStmt> removeUnreachable(Frame frame, List<IRStmt> statements) {
+        var cfg = ControlFlowGraph.build(new Chunk.CodeChunk(frame, new SeqStmt(statements)));
+        var reachable = cfg.reachable();
+        var result = new ArrayList<IRStmt>(statements.size());
+        for (var block : cfg.blocks) {
+            if (reachable[block.id]) {
+                result.addAll(block.statements);
+            }
+        }
+        return result;
+    }
+
+    private List<IRStmt> removeDeadStatements(List<IRStmt> statements) {
+        var result = new ArrayList<IRStmt>(statements.size());
+        for (var stmt : statements) {
+            if (stmt instanceof ExpStmt exp && ConstantFolding.isPure(exp.expr)) {
+                continue;
+            }
+            if (stmt instanceof CJumpStmt cjump && cjump.thenLabel.equals(cjump.elseLabel) && ConstantFolding.isPure(cjump.condition)) {
+                result.add(new JumpStmt(cjump.thenLabel));
+                continue;
+            }
+            result.add(stmt);
+        }
+        return result;
+    }
+
+    /**
+     * Odstrani skoke, ki skočijo na eno izmed label, ki jim neposredno sledijo.
+     */
+    private List<IRStmt> removeJumpsToNext(List<IRStmt> statements) {
+        var result = new ArrayList<IRStmt>(statements.size());
+        for (int i = 0; i < statements.size(); i++) {
+            if (statements.get(i) instanceof JumpStmt jump && jumpsToNext(statements, i, jump.label)) {
+                continue;
+            }
+            result.add(statements.get(i));
+        }
+        return result;
+    }
+
+    private boolean jumpsToNext(List<IRStmt> statements, int jumpIndex, Frame.Label target) {
+        for (int i = jumpIndex + 1; i < statements.size() && statements.get(i) instanceof LabelStmt label; i++) {
+            if (label.label.equals(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<IRStmt> removeUnusedLabels(List<IRStmt> statements) {
+        Set<Frame.Label> used = new HashSet<>();
+        for (var stmt : statements) {
+            if (stmt instanceof JumpStmt jump) {
+                used.add(jump.label);
+            } else if (stmt instanceof CJumpStmt cjump) {
+                used.add(cjump.thenLabel);
+                used.add(cjump.elseLabel);
+            }
+        }
+        var result = new ArrayList<IRStmt>(statements.size());
+        for (var stmt : statements) {
+            if (stmt instanceof LabelStmt label && !used.contains(label.label)) {
+                continue;
+            }
+            result.add(stmt);
+        }
+        return result;
+    }
+}
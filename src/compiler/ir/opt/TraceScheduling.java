@@ -0,0 +1,165 @@
+/**
+ * @ Author: turk
+ * @ Description: Razvrščanje osnovnih blokov v sledi.
+ */
+
+package compiler.ir.opt;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import compiler.frm.Frame;
+import compiler.ir.cfg.BasicBlock;
+import compiler.ir.cfg.ControlFlowGraph;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+/**
+ * Osnovne bloke lineariziranega fragmenta razvrsti tako, da vsakemu
+ * pogojnemu skoku sledi labela, na katero skoči, če pogoj ni izpolnjen.
+ *
+ * Sledi gradimo po vrstnem redu blokov v kodi; sled nadaljujemo z naslednikom,
+ * ki še ni razvrščen (najprej z blokom, ki mu sledi že v kodi, nato z ničelnim
+ * naslednikom pogojnega skoka). Če pogojnemu skoku sledi labela za izpolnjen pogoj,
+ * pogoj negiramo, sicer dodamo novo labelo in brezpogojni skok.
+ *
+ * Brezpogojni skok na blok, ki vsebuje le pogojni skok (npr. pogoj zanke),
+ * nadomestimo s kopijo pogojnega skoka - telo zanke tako ne potrebuje
+ * brezpogojnega skoka nazaj na pogoj.
+ */
+public class TraceScheduling {
+    public Chunk.CodeChunk optimize(Chunk.CodeChunk chunk) {
+        requireNonNull(chunk);
+        var cfg = ControlFlowGraph.build(chunk);
+        var order = traces(cfg);
+
+        var labels = new Frame.Label[cfg.blocks.size()];
+        for (var block : cfg.blocks) {
+            labels[block.id] = block.label().orElseGet(Frame.Label::nextAnonymous);
+        }
+
+        var statements = new ArrayList<IRStmt>(chunk.code.statements().size());
+        Frame.Label end = null;
+        for (int i = 0; i < order.size(); i++) {
+            var block = order.get(i);
+            var next = i + 1 < order.size() ? labels[order.get(i + 1).id] : null;
+
+            statements.add(new LabelStmt(labels[block.id]));
+            var body = block.statements;
+            int from = block.label().isPresent() ? 1 : 0;
+            int to = block.terminator().isPresent() ? body.size() - 1 : body.size();
+            statements.addAll(body.subList(from, to));
+
+            var terminator = block.terminator();
+            if (terminator.isPresent() && terminator.get() instanceof JumpStmt jump) {
+                var target = cfg.blockFor(jump.label);
+                if (target != block && isConditionBlock(target) && !jump.label.equals(next)) {
+                    terminator = target.terminator();
+                }
+            }
+            if (terminator.isEmpty()) {
+                if (block.id + 1 < cfg.blocks.size()) {
+                    var fallthrough = labels[block.id + 1];
+                    if (!fallthrough.equals(next)) {
+                        statements.add(new JumpStmt(fallthrough));
+                    }
+                } else if (next != null) {
+                    // konec fragmenta mora ostati na koncu kode
+                    if (end == null) {
+                        end = Frame.Label.nextAnonymous();
+                    }
+                    statements.add(new JumpStmt(end));
+                }
+            } else if (terminator.get() instanceof JumpStmt jump) {
+                if (!jump.label.equals(next)) {
+                    statements.add(jump);
+                }
+            } else if (terminator.get() instanceof CJumpStmt cjump) {
+                if (cjump.elseLabel.equals(next)) {
+                    statements.add(cjump);
+                } else if (cjump.thenLabel.equals(next)) {
+                    statements.add(new CJumpStmt(negate(cjump.condition), cjump.elseLabel, cjump.thenLabel));
+                } else {
+                    var elseLabel = Frame.Label.nextAnonymous();
+                    statements.add(new CJumpStmt(cjump.condition, cjump.thenLabel, elseLabel));
+                    statements.add(new LabelStmt(elseLabel));
+                    statements.add(new JumpStmt(cjump.elseLabel));
+                }
+            }
+        }
+        if (end != null) {
+            statements.add(new LabelStmt(end));
+        }
+        return new Chunk.CodeChunk(chunk.frame, new SeqStmt(statements));
+    }
+
+    private List<BasicBlock> traces(ControlFlowGraph cfg) {
+        var order = new ArrayList<BasicBlock>(cfg.blocks.size());
+        var scheduled = new boolean[cfg.blocks.size()];
+        for (var start : cfg.blocks) {
+            var block = start;
+            while (block != null && !scheduled[block.id]) {
+                scheduled[block.id] = true;
+                order.add(block);
+                block = next(cfg, block, scheduled);
+            }
+        }
+        return order;
+    }
+
+    private BasicBlock next(ControlFlowGraph cfg, BasicBlock block, boolean[] scheduled) {
+        var terminator = block.terminator();
+        if (block.id + 1 < cfg.blocks.size()) {
+            var following = cfg.blocks.get(block.id + 1);
+            if (!scheduled[following.id] && block.successors().contains(following)) {
+                return following;
+            }
+        }
+        BasicBlock candidate = null;
+        if (terminator.isEmpty()) {
+            return null;
+        } else if (terminator.get() instanceof JumpStmt jump) {
+            candidate = cfg.blockFor(jump.label);
+        } else if (terminator.get() instanceof CJumpStmt cjump) {
+            var elseBlock = cfg.blockFor(cjump.elseLabel);
+            candidate = scheduled[elseBlock.id] ? cfg.blockFor(cjump.thenLabel) : elseBlock;
+        }
+        // Zadnji blok (izstop iz funkcije) mora ostati na koncu, sicer potrebujemo dodaten skok.
+        if (candidate != null && candidate.id == cfg.blocks.size() - 1) {
+            return null;
+        }
+        return candidate;
+    }
+
+    /**
+     * Blok, ki ga sestavljata le labela in pogojni skok.
+     */
+    private boolean isConditionBlock(BasicBlock block) {
+        return block.statements.size() == 2
+            && block.label().isPresent()
+            && block.statements.get(1) instanceof CJumpStmt;
+    }
+
+    /**
+     * Negira pogoj.
+     *
+     * Navidezni stroj skoči na `thenLabel` natanko tedaj, ko je vrednost pogoja 1.
+     */
+    private IRExpr negate(IRExpr condition) {
+        if (condition instanceof BinopExpr binop) {
+            switch (binop.op) {
+                case EQ: return new BinopExpr(binop.lhs, binop.rhs, BinopExpr.Operator.NEQ);
+                case NEQ: return new BinopExpr(binop.lhs, binop.rhs, BinopExpr.Operator.EQ);
+                case LT: return new BinopExpr(binop.lhs, binop.rhs, BinopExpr.Operator.GEQ);
+                case GEQ: return new BinopExpr(binop.lhs, binop.rhs, BinopExpr.Operator.LT);
+                case GT: return new BinopExpr(binop.lhs, binop.rhs, BinopExpr.Operator.LEQ);
+                case LEQ: return new BinopExpr(binop.lhs, binop.rhs, BinopExpr.Operator.GT);
+                default: break;
+            }
+        }
+        return new BinopExpr(condition, new ConstantExpr(1), BinopExpr.Operator.NEQ);
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * @ Author: turk
+ * @ Description: Predpomnilnik razčlenjenih dreves.
+ */
+
+package compiler.parser;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import compiler.common.AstReader;
+import compiler.common.AstWriter;
+import compiler.parser.ast.Ast;
+
+/**
+ * Hrani AST v datotekah, poimenovanih po zgoščevalni vrednosti (SHA-256)
+ * izvorne kode. Če se izvorna koda ne spremeni, drevo preberemo iz
+ * predpomnilnika in preskočimo leksikalno in sintaksno analizo.
+ *
+ * Zapis: glava (`magic`, `version`, SHA-256 izvorne kode, dolžina in CRC32
+ * drevesa), ki ji sledi drevo v obliki `AstWriter`. Zapis, ki se ne ujema
+ * z izvorno kodo, različico ali kontrolno vsoto, ignoriramo.
+ */
+public class AstCache {
+    private static final int magic = 0x50494e53; // "PINS"
+
+    /**
+     * Različica zapisa; povečamo jo ob vsaki spremembi AST ali `AstWriter`.
+     */
+    private static final int version = 1;
+
+    private static final int headerSize = 4 + 4 + 32 + 4 + 4;
+
+    /**
+     * Direktorij predpomnilnika.
+     */
+    private final Path directory;
+
+    /**
+     * Izvorna koda, za katero smo nazadnje izračunali zgoščevalno vrednost.
+     */
+    private String hashedSource;
+
+    private byte[] hash;
+
+    public AstCache(Path directory) {
+        requireNonNull(directory);
+        this.directory = directory;
+    }
+
+    /**
+     * Vrne drevo za `sourceCode`, če je v predpomnilniku in je zapis veljaven.
+     */
+    public Optional<Ast> load(String sourceCode) {
+        requireNonNull(sourceCode);
+        var hash = hash(sourceCode);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(path(hash));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        if (bytes.length < headerSize) {
+            return Optional.empty();
+        }
+        var header = ByteBuffer.wrap(bytes, 0, headerSize);
+        if (header.getInt() != magic || header.getInt() != version) {
+            return Optional.empty();
+        }
+        var storedHash = new byte[32];
+        header.get(storedHash);
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (!Arrays.equals(hash, storedHash) || length != bytes.length - headerSize
+                || checksum != checksum(bytes, headerSize, length)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(AstReader.read(bytes, headerSize, length));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Shrani drevo za `sourceCode`. Napake pri pisanju ignoriramo,
+     * saj predpomnilnik ni nujen za prevajanje.
+     */
+    public void store(String sourceCode, Ast ast) {
+        requireNonNull(sourceCode, ast);
+        var hash = hash(sourceCode);
+        var tree = AstWriter.write(ast);
+        var bytes = ByteBuffer.allocate(headerSize + tree.length)
+            .putInt(magic)
+            .putInt(version)
+            .put(hash)
+            .putInt(tree.length)
+            .putInt(checksum(tree, 0, tree.length))
+            .put(tree)
+            .array();
+        try {
+            Files.createDirectories(directory);
+            // Zapis v začasno datoteko in preimenovanje - sočasni zagon ne vidi nepopolnega zapisa.
+            var temporary = Files.createTempFile(directory, "ast", ".tmp");
+            try {
+                Files.write(temporary, bytes);
+                try {
+                    Files.move(temporary, path(hash), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, path(hash), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            // predpomnilnik ni na voljo
+        }
+    }
+
+    // --------------------------------------
+
+    private Path path(byte[] hash) {
+        return directory.resolve(HexFormat.of().formatHex(hash) + ".ast");
+    }
+
+    private byte[] hash(String sourceCode) {
+        if (sourceCode != hashedSource) {
+            try {
+                hash = MessageDigest.getInstance("SHA-256").digest(sourceCode.getBytes(StandardCharsets.UTF_8));
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+            hashedSource = sourceCode;
+        }
+        return hash;
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        var crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}